@@ -1,7 +1,5 @@
 package Graph;
 
-import java.util.ArrayList;
-
 /**
  *
  * The following class can be used to create objects of bipartite graph. It is important to understand how the
@@ -45,23 +43,23 @@ public class BipartiteGraph extends Graph
     }
 
     @Override
-    public void addEdge(Integer u, Integer v, Integer weight)
+    public void addEdge(int u, int v, int weight)
+    {
+        append(u, v, weight);
+        append(v, u, weight);
+        version++;
+    }
+
+    @Override
+    boolean mirrored()
     {
-        adjacencyList.get(u).add(new Graph.Vertex(v, weight));
-        adjacencyList.get(v).add(new Graph.Vertex(u, weight));
+        return true;
     }
 
     @Override
     public void printGraph()
     {
         // print neighbouring vertices only for the vertices of set L
-        for (int i = 0;i < L;i++)
-        {
-            ArrayList<Vertex> eachVertex = adjacencyList.get(i);
-
-            System.out.printf("%2d: ", i);
-            for (Graph.Vertex v : eachVertex) System.out.print(v + " ");
-            System.out.println();
-        }
+        for (int i = 0;i < L;i++) printNeighbours(i);
     }
 }
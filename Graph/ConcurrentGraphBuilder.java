@@ -0,0 +1,155 @@
+package Graph;
+
+/**
+ *
+ * Builds a graph from edges added by many threads at the same time. Graph#addEdge(int, int, int) is not thread-safe,
+ * whereas addEdge(int, int, int) of the builder can be called by any number of threads without any external locking.
+ *
+ * The vertices are divided into stripes and every stripe has its own lock, which is held only while an edge is appended
+ * to the arrays of a vertex of that stripe. Hence, threads adding edges of different vertices rarely wait for each
+ * other. An edge of an undirected or bipartite graph is appended to both of its vertices while holding the locks of
+ * both the stripes, hence no thread can see only one half of the edge.
+ *
+ * Once all the edges have been added, the builder is sealed into a normal Graph or a CsrGraph. The edges are not
+ * copied while sealing a Graph.
+ *
+ * Example:
+ *
+ *     ConcurrentGraphBuilder builder = ConcurrentGraphBuilder.undirected(vertices);
+ *
+ *     // from any number of threads
+ *     builder.addEdge(u, v, w);
+ *
+ *     // after all the threads are done
+ *     UndirectedGraph graph = (UndirectedGraph) builder.seal();
+ *
+ * NOTE: The neighbours of a vertex are in the order in which its edges were appended, which depends on the scheduling
+ *       of the threads.
+ */
+public final class ConcurrentGraphBuilder
+{
+    // 16 consecutive vertices share a stripe, hence their degrees, which lie in the same cache line, are only written
+    // by the thread holding the lock of that stripe
+    private static final int STRIPE_SHIFT = 4;
+    private static final int STRIPES = 1 << 10;
+
+    private final Graph graph;
+    private final boolean mirrored;
+    private final Object[] locks = new Object[STRIPES];
+
+    private volatile boolean sealed;
+
+    private ConcurrentGraphBuilder(Graph graph)
+    {
+        this.graph = graph;
+        this.mirrored = graph.mirrored();
+
+        for (int i = 0;i < STRIPES;i++) locks[i] = new Object();
+    }
+
+    public static ConcurrentGraphBuilder directed(int vertices)
+    {
+        return new ConcurrentGraphBuilder(new DirectedGraph(vertices));
+    }
+
+    public static ConcurrentGraphBuilder undirected(int vertices)
+    {
+        return new ConcurrentGraphBuilder(new UndirectedGraph(vertices));
+    }
+
+    /**
+     *
+     * @param L number of vertices in set L
+     * @param R number of vertices in set R
+     */
+    public static ConcurrentGraphBuilder bipartite(int L, int R)
+    {
+        return new ConcurrentGraphBuilder(new BipartiteGraph(L, R));
+    }
+
+    /**
+     * Thread-safe equivalent of Graph#addEdge(int, int, int) of the graph being built.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @param weight weight of the edge or Graph.NO_WEIGHT
+     * @throws IllegalStateException if the builder has been sealed
+     */
+    public void addEdge(int u, int v, int weight)
+    {
+        Object lock = locks[stripe(u)];
+
+        if (!mirrored || stripe(u) == stripe(v))
+        {
+            synchronized (lock)
+            {
+                append(u, v, weight);
+            }
+
+            return;
+        }
+
+        // Both the locks are always acquired in the same order, hence two threads can never wait for each other
+        Object first = stripe(u) < stripe(v) ? lock : locks[stripe(v)];
+        Object second = first == lock ? locks[stripe(v)] : lock;
+
+        synchronized (first)
+        {
+            synchronized (second)
+            {
+                append(u, v, weight);
+            }
+        }
+    }
+
+    private static int stripe(int u)
+    {
+        return (u >>> STRIPE_SHIFT) & (STRIPES-1);
+    }
+
+    // Should be called while holding the locks of the stripes of both u and v
+    private void append(int u, int v, int weight)
+    {
+        if (sealed) throw new IllegalStateException("Builder has been sealed");
+
+        graph.append(u, v, weight);
+        if (mirrored) graph.append(v, u, weight);
+    }
+
+    /**
+     * Stops the builder from accepting any more edges. Edges whose addition has already started are completed before
+     * this method returns.
+     *
+     * @return graph containing all the added edges, of the kind the builder was created for
+     * @throws IllegalStateException if the builder has already been sealed
+     */
+    public synchronized Graph seal()
+    {
+        if (sealed) throw new IllegalStateException("Builder has been sealed");
+        sealed = true;
+
+        // Acquiring every lock waits for the edges being appended and makes all the appended edges visible to this
+        // thread
+        for (Object lock : locks)
+        {
+            synchronized (lock)
+            {
+                // Nothing to be done while holding the lock
+            }
+        }
+
+        graph.bulkLoaded();
+
+        return graph;
+    }
+
+    /**
+     *
+     * @return CSR snapshot containing all the added edges
+     * @throws IllegalStateException if the builder has already been sealed
+     */
+    public CsrGraph sealCsr()
+    {
+        return seal().freeze();
+    }
+}
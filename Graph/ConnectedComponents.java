@@ -3,7 +3,6 @@ package Graph;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
-import java.util.Stack;
 
 /**
  *
@@ -14,9 +13,18 @@ public class ConnectedComponents
 {
     public static class UG
     {
-        UndirectedGraph ug;
+        GraphView ug;
 
         public UG(UndirectedGraph ug)
+        {
+            this((GraphView) ug);
+        }
+
+        /**
+         *
+         * @param ug undirected graph, ie, every edge u -> v must also be present as v -> u
+         */
+        public UG(GraphView ug)
         {
             this.ug = ug;
         }
@@ -28,39 +36,68 @@ public class ConnectedComponents
         public ArrayList<ArrayList<Integer>> connectedComponents()
         {
             ArrayList<ArrayList<Integer>> connectedComponents = new ArrayList<>();
-            boolean[] isVisited = new boolean[ug.vertices];
+            boolean[] isVisited = new boolean[ug.vertices()];
+
+            DepthFirstSearch search = new DepthFirstSearch(ug);
 
-            for (int i = 0; i < ug.vertices; i++)
+            for (int i = 0; i < ug.vertices(); i++)
             {
                 if (!isVisited[i])
                 {
                     ArrayList<Integer> component = new ArrayList<>();
-                    findConnectedComponent(i, isVisited, component);
+
+                    isVisited[i] = true;
+                    search.run(i, new ComponentVisitor(component)
+                    {
+                        @Override
+                        public int edge(int u, int i, int v)
+                        {
+                            if (isVisited[v]) return DepthFirstSearch.SKIP;
+
+                            isVisited[v] = true;
+                            return DepthFirstSearch.DESCEND;
+                        }
+                    });
+
                     connectedComponents.add(component);
                 }
             }
 
             return connectedComponents;
         }
+    }
+
+    // Adds every visited vertex to a component
+    private abstract static class ComponentVisitor implements DepthFirstSearch.Visitor
+    {
+        final ArrayList<Integer> component;
 
-        // Finds a connected component using DFS
-        private void findConnectedComponent(int u, boolean[] isVisited, ArrayList<Integer> component)
+        ComponentVisitor(ArrayList<Integer> component)
         {
-            isVisited[u] = true;
-            component.add(u);
+            this.component = component;
+        }
 
-            for (Graph.Vertex v : ug.adjacencyList.get(u))
-            {
-                if (!isVisited[v.i]) findConnectedComponent(v.i, isVisited, component);
-            }
+        @Override
+        public void preVisit(int u)
+        {
+            component.add(u);
         }
     }
 
     public static class DG
     {
-        DirectedGraph dg;
+        GraphView dg;
 
+        /**
+         *
+         * If the graph maintains its transpose, ie, getTranspose() has been called on it, kosarajus() reads that
+         * transpose instead of building one.
+         */
         public DG(DirectedGraph dg) {
+            this((GraphView) dg);
+        }
+
+        public DG(GraphView dg) {
             this.dg = dg;
         }
 
@@ -71,11 +108,7 @@ public class ConnectedComponents
         public ArrayList<ArrayList<Integer>> weaklyConnectedComponents()
         {
             // Step 1: Construct underlying undirected graph of the provided directed graph
-            UndirectedGraph undirectedGraph = new UndirectedGraph(dg.vertices);
-            for (int u = 0; u < dg.vertices; u++)
-            {
-                for (Graph.Vertex v : dg.adjacencyList.get(u)) undirectedGraph.addEdge(u, v.i, null);
-            }
+            CsrGraph undirectedGraph = CsrGraph.undirected(dg);
 
             // Step 2: Return the connected components of the underlying undirected graph
             return new UG(undirectedGraph).connectedComponents();
@@ -87,78 +120,89 @@ public class ConnectedComponents
          */
         public ArrayList<ArrayList<Integer>> kosarajus()
         {
-            int[] parent = new int[dg.vertices];
+            int[] parent = new int[dg.vertices()];
             Arrays.fill(parent, -1);
 
-            Stack<Integer> ordering = new Stack<>();
+            // Every vertex is finished once, hence ordering[] holds all the vertices in the order of finishing
+            int[] ordering = new int[dg.vertices()];
 
-            for (int i = 0; i < dg.vertices; i++)
+            DepthFirstSearch search = new DepthFirstSearch(dg);
+            DepthFirstSearch.Visitor visitor = new DepthFirstSearch.Visitor()
+            {
+                private int finished;
+
+                @Override
+                public int edge(int u, int i, int v)
+                {
+                    return descend(parent, u, v);
+                }
+
+                // On finishing the exploration of the vertex source, add it the stack
+                @Override
+                public void postVisit(int u)
+                {
+                    ordering[finished++] = u;
+                }
+            };
+
+            for (int i = 0; i < dg.vertices(); i++)
             {
                 if (parent[i] == -1)
                 {
                     parent[i] = -2;
-                    DFS(i, parent, ordering);
+                    search.run(i, visitor);
                 }
             }
 
             // Reset the parent array
             Arrays.fill(parent, -1);
-            DirectedGraph transpose =  dg.getTranspose();
+            GraphView transpose = transpose();
 
             ArrayList<ArrayList<Integer>> connectedComponents = new ArrayList<>();
+            DepthFirstSearch transposeSearch = new DepthFirstSearch(transpose);
 
-            while (!ordering.isEmpty())
+            // Pop the vertices in the reverse order of finishing
+            for (int top = ordering.length-1;top >= 0;top--)
             {
-                if (parent[ordering.peek()] == -1)
+                int u = ordering[top];
+
+                if (parent[u] == -1)
                 {
                     ArrayList<Integer> connectedComponent = new ArrayList<>();
 
-                    parent[ordering.peek()] = -2;
-                    findConnectedComponent(transpose, ordering.peek(), parent, connectedComponent);
+                    parent[u] = -2;
+                    transposeSearch.run(u, new ComponentVisitor(connectedComponent)
+                    {
+                        @Override
+                        public int edge(int u, int i, int v)
+                        {
+                            return descend(parent, u, v);
+                        }
+                    });
 
                     connectedComponents.add(connectedComponent);
                 }
-
-                ordering.pop();
             }
 
             return connectedComponents;
         }
 
-        /**
-         *
-         * @param u parent vertex
-         * @param parent parent array
-         * @param ordering stack to store vertices according to their finishing time. vertex with the largest
-         *                 finishing time will be at the top upon completion
-         */
-        private void DFS(int u, int[] parent, Stack<Integer> ordering)
+        // Transpose maintained by the graph if any, else a new one
+        private GraphView transpose()
         {
-            for (Graph.Vertex v : dg.adjacencyList.get(u))
-            {
-                if (parent[v.i] == -1)
-                {
-                    parent[v.i] = u;
-                    DFS(v.i, parent, ordering);
-                }
-            }
+            if (dg instanceof DirectedGraph && ((DirectedGraph) dg).hasTranspose())
+                return ((DirectedGraph) dg).getTranspose();
 
-            // On finishing the exploration of the vertex source, add it the stack
-            ordering.add(u);
+            return CsrGraph.transpose(dg);
         }
 
-        private void findConnectedComponent(DirectedGraph transpose, int u, int[] parent, ArrayList<Integer> connectedComponent)
+        // Visits v as a child of u if it has not been visited yet
+        private static int descend(int[] parent, int u, int v)
         {
-            connectedComponent.add(u);
+            if (parent[v] != -1) return DepthFirstSearch.SKIP;
 
-            for (Graph.Vertex v : transpose.adjacencyList.get(u))
-            {
-                if (parent[v.i] == -1)
-                {
-                    parent[v.i] = u;
-                    findConnectedComponent(transpose, v.i, parent, connectedComponent);
-                }
-            }
+            parent[v] = u;
+            return DepthFirstSearch.DESCEND;
         }
 
         // Used to give unique ID to vertices in tarjan's algorithm
@@ -174,50 +218,74 @@ public class ConnectedComponents
 
             ArrayList<ArrayList<Integer>> scc = new ArrayList<>();
 
-            int[] discovery = new int[dg.vertices];
-            int[] lowLink = new int[dg.vertices];
+            int[] discovery = new int[dg.vertices()];
+            int[] lowLink = new int[dg.vertices()];
             Arrays.fill(discovery, -1);
 
-            for (int u = 0; u < dg.vertices; u++)
-            {
-                if (discovery[u] == -1) tarjansDFS(u, discovery, lowLink, new boolean[dg.vertices], new Stack<>(), scc);
-            }
+            // Every vertex is popped once its component is found, hence both are empty after every search
+            boolean[] onStack = new boolean[dg.vertices()];
+            int[] stack = new int[dg.vertices()];
 
-            return scc;
-        }
+            DepthFirstSearch search = new DepthFirstSearch(dg);
+            DepthFirstSearch.Visitor visitor = new DepthFirstSearch.Visitor()
+            {
+                // stack[0] to stack[top-1] are the vertices on the stack
+                private int top;
 
-        private void tarjansDFS(int u, int[] discovery, int[] lowLink, boolean[] onStack, Stack<Integer> stack,
-                                ArrayList<ArrayList<Integer>> scc)
-        {
-            discovery[u] = time;
-            lowLink[u] = time;
-            onStack[u] = true;
-            stack.add(u);
+                @Override
+                public void preVisit(int u)
+                {
+                    discovery[u] = time;
+                    lowLink[u] = time;
+                    onStack[u] = true;
+                    stack[top++] = u;
 
-            time++;
+                    time++;
+                }
 
-            for (Graph.Vertex v : dg.adjacencyList.get(u))
-            {
-                if (discovery[v.i] == -1) tarjansDFS(v.i, discovery, lowLink, onStack, stack, scc);
-                if (onStack[v.i]) lowLink[u] = Math.min(lowLink[u], lowLink[v.i]);
-            }
+                @Override
+                public int edge(int u, int i, int v)
+                {
+                    if (discovery[v] == -1) return DepthFirstSearch.DESCEND;
+                    if (onStack[v]) lowLink[u] = Math.min(lowLink[u], lowLink[v]);
 
-            if (lowLink[u] == discovery[u])
-            {
-                ArrayList<Integer> component = new ArrayList<>();
+                    return DepthFirstSearch.SKIP;
+                }
 
-                int v = -1;
-                while (v != u)
+                @Override
+                public void childFinished(int u, int v)
                 {
-                    v = stack.pop();
+                    if (onStack[v]) lowLink[u] = Math.min(lowLink[u], lowLink[v]);
+                }
 
-                    onStack[v] = false;
-                    component.add(v);
+                @Override
+                public void postVisit(int u)
+                {
+                    if (lowLink[u] == discovery[u])
+                    {
+                        ArrayList<Integer> component = new ArrayList<>();
+
+                        int v = -1;
+                        while (v != u)
+                        {
+                            v = stack[--top];
+
+                            onStack[v] = false;
+                            component.add(v);
+                        }
+
+                        component.sort(Comparator.comparingInt(o -> o));
+                        scc.add(component);
+                    }
                 }
+            };
 
-                component.sort(Comparator.comparingInt(o -> o));
-                scc.add(component);
+            for (int u = 0; u < dg.vertices(); u++)
+            {
+                if (discovery[u] == -1) search.run(u, visitor);
             }
+
+            return scc;
         }
     }
 }
@@ -10,9 +10,18 @@ import java.util.Arrays;
  */
 public class CriticalPointsAndBridges
 {
-    private final UndirectedGraph ug;
+    private final GraphView ug;
 
     public CriticalPointsAndBridges(UndirectedGraph ug)
+    {
+        this((GraphView) ug);
+    }
+
+    /**
+     *
+     * @param ug undirected graph, ie, every edge u -> v must also be present as v -> u
+     */
+    public CriticalPointsAndBridges(GraphView ug)
     {
         this.ug = ug;
     }
@@ -28,51 +37,56 @@ public class CriticalPointsAndBridges
         ArrayList<Integer> points = new ArrayList<>();
         time = 0;
 
-        int[] parent = new int[ug.vertices];
-        int[] lowLink = new int[ug.vertices];
-        int[] discovery = new int[ug.vertices];
-        boolean[] isAP = new boolean[ug.vertices];
+        int[] parent = new int[ug.vertices()];
+        int[] lowLink = new int[ug.vertices()];
+        int[] discovery = new int[ug.vertices()];
+        boolean[] isAP = new boolean[ug.vertices()];
 
         Arrays.fill(parent, -1);
 
-        for (int i = 0; i < ug.vertices; i++)
+        DepthFirstSearch search = new DepthFirstSearch(ug);
+
+        for (int i = 0; i < ug.vertices(); i++)
         {
             if (parent[i] == -1)
             {
                 parent[i] = -2;
-                DFS(i, parent, lowLink, discovery, isAP);
+                search.run(i, new LowLinkVisitor(parent, lowLink, discovery)
+                {
+                    // Number of children of the root
+                    int children = 0;
+
+                    @Override
+                    public int edge(int u, int i, int v)
+                    {
+                        int action = super.edge(u, i, v);
+                        if (action == DepthFirstSearch.DESCEND && parent[u] == -2) children++;
+
+                        return action;
+                    }
+
+                    @Override
+                    public void childFinished(int u, int v)
+                    {
+                        super.childFinished(u, v);
+
+                        if (parent[u] != -2 && lowLink[v] >= discovery[u]) isAP[u] = true;
+                    }
+
+                    @Override
+                    public void postVisit(int u)
+                    {
+                        if (parent[u] == -2 && children > 1) isAP[u] = true;
+                    }
+                });
             }
         }
 
-        for (int i = 0; i < ug.vertices; i++) if (isAP[i]) points.add(i);
+        for (int i = 0; i < ug.vertices(); i++) if (isAP[i]) points.add(i);
 
         return points;
     }
 
-    private void DFS(int u, int[] parent, int[] lowLink, int[] discovery, boolean[] isAP)
-    {
-        int children = 0;
-
-        lowLink[u] = discovery[u] = time++;
-
-        for (Graph.Vertex v : ug.adjacencyList.get(u))
-        {
-            if (parent[v.i] == -1)
-            {
-                children++;
-                parent[v.i] = u;
-                DFS(v.i, parent, lowLink, discovery, isAP);
-
-                lowLink[u] = Math.min(lowLink[u], lowLink[v.i]);
-
-                if (parent[u] != -2 && lowLink[v.i] >= discovery[u]) isAP[u] = true;
-            }
-            else if (v.i != parent[u]) lowLink[u] = Math.min(lowLink[u], discovery[v.i]);
-        }
-
-        if (parent[u] == -2 && children > 1) isAP[u] = true;
-    }
-
     /**
      *
      * @return Array list of bridges. Each bridge is represented as an array list of size 2.
@@ -83,48 +97,81 @@ public class CriticalPointsAndBridges
 
         time = 0;
 
-        int[] parent = new int[ug.vertices];
-        int[] lowLink = new int[ug.vertices];
-        int[] discovery = new int[ug.vertices];
+        int[] parent = new int[ug.vertices()];
+        int[] lowLink = new int[ug.vertices()];
+        int[] discovery = new int[ug.vertices()];
 
         Arrays.fill(parent, -1);
 
-        for (int i = 0; i < ug.vertices; i++)
+        DepthFirstSearch search = new DepthFirstSearch(ug);
+        DepthFirstSearch.Visitor visitor = new LowLinkVisitor(parent, lowLink, discovery)
+        {
+            @Override
+            public void childFinished(int u, int v)
+            {
+                super.childFinished(u, v);
+
+                if (lowLink[v] > discovery[u])
+                {
+                    ArrayList<Integer> edge = new ArrayList<>(2);
+                    edge.add(u);
+                    edge.add(v);
+
+                    bridges.add(edge);
+                }
+            }
+        };
+
+        for (int i = 0; i < ug.vertices(); i++)
         {
             if (parent[i] == -1)
             {
                 parent[i] = -2;
-                DFS(i, parent, lowLink, discovery, bridges);
+                search.run(i, visitor);
             }
         }
 
         return bridges;
     }
 
-    private void DFS(int u, int[] parent, int[] lowLink, int[] discovery,
-                     ArrayList<ArrayList<Integer>> bridges)
+    // Computes the discovery time and the low link of every vertex, shared by both the algorithms
+    private class LowLinkVisitor implements DepthFirstSearch.Visitor
     {
-        lowLink[u] = discovery[u] = time++;
+        final int[] parent;
+        final int[] lowLink;
+        final int[] discovery;
+
+        LowLinkVisitor(int[] parent, int[] lowLink, int[] discovery)
+        {
+            this.parent = parent;
+            this.lowLink = lowLink;
+            this.discovery = discovery;
+        }
 
-        for (Graph.Vertex v : ug.adjacencyList.get(u))
+        @Override
+        public void preVisit(int u)
         {
-            if (parent[v.i] == -1)
+            lowLink[u] = discovery[u] = time++;
+        }
+
+        @Override
+        public int edge(int u, int i, int v)
+        {
+            if (parent[v] == -1)
             {
-                parent[v.i] = u;
-                DFS(v.i, parent, lowLink, discovery, bridges);
+                parent[v] = u;
+                return DepthFirstSearch.DESCEND;
+            }
 
-                lowLink[u] = Math.min(lowLink[u], lowLink[v.i]);
+            if (v != parent[u]) lowLink[u] = Math.min(lowLink[u], discovery[v]);
 
-                if (lowLink[v.i] > discovery[u])
-                {
-                    ArrayList<Integer> edge = new ArrayList<>(2);
-                    edge.add(u);
-                    edge.add(v.i);
+            return DepthFirstSearch.SKIP;
+        }
 
-                    bridges.add(edge);
-                }
-            }
-            else if (v.i != parent[u]) lowLink[u] = Math.min(lowLink[u], discovery[v.i]);
+        @Override
+        public void childFinished(int u, int v)
+        {
+            lowLink[u] = Math.min(lowLink[u], lowLink[v]);
         }
     }
 }
@@ -0,0 +1,243 @@
+package Graph;
+
+/**
+ *
+ * Immutable compressed sparse row (CSR) snapshot of a graph. Instead of one list of Vertex objects per vertex, all
+ * the edges are stored in three primitive arrays:
+ *
+ *     1: offsets[u] is the index of the first edge of u. The edges of u end at offsets[u+1]
+ *     2: targets[e] is the destination vertex of edge e
+ *     3: weights[e] is the weight of edge e (Graph.NO_WEIGHT if the edge was added without one)
+ *
+ * Example:
+ *
+ *     0: [1, 5] [2, 3]
+ *     1: [2, 7]
+ *     2: []
+ *
+ * is stored as
+ *
+ *     offsets: [0, 2, 3, 3]
+ *     targets: [1, 2, 2]
+ *     weights: [5, 3, 7]
+ *
+ * The order of the neighbours of each vertex is the same as in the graph it was built from, hence all the algorithms
+ * visit the vertices in the same order on both representations.
+ *
+ * @see Graph#freeze()
+ */
+public final class CsrGraph implements GraphView
+{
+    final int vertices;
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+
+    CsrGraph(int vertices, int[] offsets, int[] targets, int[] weights)
+    {
+        this.vertices = vertices;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     *
+     * @param graph graph to be copied
+     * @return CSR snapshot of the graph. Later changes to the graph are not reflected in the snapshot.
+     * @throws IllegalArgumentException if the graph has more than Integer.MAX_VALUE edges
+     */
+    public static CsrGraph of(Graph graph)
+    {
+        int[] offsets = new int[graph.vertices+1];
+        for (int u = 0;u < graph.vertices;u++) offsets[u+1] = end(offsets[u], graph.degree[u]);
+
+        int[] targets = new int[offsets[graph.vertices]];
+        int[] weights = new int[offsets[graph.vertices]];
+
+        for (int u = 0;u < graph.vertices;u++)
+        {
+            System.arraycopy(graph.targets[u], 0, targets, offsets[u], graph.degree[u]);
+            System.arraycopy(graph.weights[u], 0, weights, offsets[u], graph.degree[u]);
+        }
+
+        return new CsrGraph(graph.vertices, offsets, targets, weights);
+    }
+
+    /**
+     *
+     * @param graph graph to be copied
+     * @return the graph itself if it already is a CsrGraph, else its CSR snapshot on the heap
+     * @throws IllegalArgumentException if the graph has more than Integer.MAX_VALUE edges, eg, a large MappedGraph
+     */
+    public static CsrGraph of(GraphView graph)
+    {
+        if (graph instanceof CsrGraph) return (CsrGraph) graph;
+        if (graph instanceof Graph) return of((Graph) graph);
+
+        int[] offsets = new int[graph.vertices()+1];
+        for (int u = 0;u < graph.vertices();u++) offsets[u+1] = end(offsets[u], graph.degree(u));
+
+        int[] targets = new int[offsets[graph.vertices()]];
+        int[] weights = new int[offsets[graph.vertices()]];
+
+        for (int u = 0;u < graph.vertices();u++)
+        {
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                targets[offsets[u]+i] = graph.target(u, i);
+                weights[offsets[u]+i] = graph.weight(u, i);
+            }
+        }
+
+        return new CsrGraph(graph.vertices(), offsets, targets, weights);
+    }
+
+    // Index after the edges which start at offset, the edges of a CsrGraph being indexed by an int
+    private static int end(int offset, int edges)
+    {
+        try
+        {
+            return Math.addExact(offset, edges);
+        }
+        catch (ArithmeticException e)
+        {
+            throw new IllegalArgumentException("Too many edges for a CsrGraph, which holds at most "
+                                               + Integer.MAX_VALUE);
+        }
+    }
+
+    @Override
+    public int vertices()
+    {
+        return vertices;
+    }
+
+    public int edges()
+    {
+        return targets.length;
+    }
+
+    @Override
+    public int degree(int u)
+    {
+        return offsets[u+1] - offsets[u];
+    }
+
+    @Override
+    public int target(int u, int i)
+    {
+        return targets[offsets[u]+i];
+    }
+
+    @Override
+    public int weight(int u, int i)
+    {
+        return weights[offsets[u]+i];
+    }
+
+    /**
+     *
+     * Every edge u -> v of the graph becomes v -> u in the transpose. Neighbours of each vertex in the transpose
+     * are ordered by their source vertex, same as the transpose built by DirectedGraph#getTranspose().
+     *
+     * @param graph graph to be transposed
+     * @return transpose of the graph
+     */
+    static CsrGraph transpose(GraphView graph)
+    {
+        int vertices = graph.vertices();
+
+        // The edges are summed before the ones of u are counted, hence neither the counts nor their sums overflow
+        int[] offsets = new int[vertices+1];
+        for (int u = 0, edges = 0;u < vertices;u++)
+        {
+            edges = end(edges, graph.degree(u));
+            for (int i = 0;i < graph.degree(u);i++) offsets[graph.target(u, i)+1]++;
+        }
+        for (int u = 0;u < vertices;u++) offsets[u+1] += offsets[u];
+
+        int[] next = new int[vertices];
+        System.arraycopy(offsets, 0, next, 0, vertices);
+
+        int[] targets = new int[offsets[vertices]];
+        int[] weights = new int[offsets[vertices]];
+
+        for (int u = 0;u < vertices;u++)
+        {
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int slot = next[graph.target(u, i)]++;
+
+                targets[slot] = u;
+                weights[slot] = graph.weight(u, i);
+            }
+        }
+
+        return new CsrGraph(vertices, offsets, targets, weights);
+    }
+
+    /**
+     *
+     * Builds the underlying undirected graph of a graph, ie, every edge u -> v is present as both u -> v and
+     * v -> u. The neighbours are added in the same order as UndirectedGraph#addEdge(int, int, int) would add them if
+     * the edges were inserted one after another.
+     *
+     * @param graph directed graph
+     * @return undirected snapshot
+     */
+    static CsrGraph undirected(GraphView graph)
+    {
+        int vertices = graph.vertices();
+
+        // The edges are summed before the ones of u are counted, hence neither the counts nor their sums overflow
+        int[] offsets = new int[vertices+1];
+        for (int u = 0, edges = 0;u < vertices;u++)
+        {
+            edges = end(end(edges, graph.degree(u)), graph.degree(u));
+            offsets[u+1] += graph.degree(u);
+            for (int i = 0;i < graph.degree(u);i++) offsets[graph.target(u, i)+1]++;
+        }
+        for (int u = 0;u < vertices;u++) offsets[u+1] += offsets[u];
+
+        int[] next = new int[vertices];
+        System.arraycopy(offsets, 0, next, 0, vertices);
+
+        int[] targets = new int[offsets[vertices]];
+        int[] weights = new int[offsets[vertices]];
+
+        for (int u = 0;u < vertices;u++)
+        {
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int v = graph.target(u, i);
+
+                targets[next[u]] = v;
+                weights[next[u]++] = graph.weight(u, i);
+
+                targets[next[v]] = u;
+                weights[next[v]++] = graph.weight(u, i);
+            }
+        }
+
+        return new CsrGraph(vertices, offsets, targets, weights);
+    }
+
+    /**
+     *
+     * Prints the snapshot in the same format as Graph#printGraph()
+     */
+    public void printGraph()
+    {
+        for (int u = 0;u < vertices;u++)
+        {
+            System.out.printf("%2d: ", u);
+            for (int e = offsets[u];e < offsets[u+1];e++)
+            {
+                if (weights[e] == Graph.NO_WEIGHT) System.out.print("[" + targets[e] + "] ");
+                else System.out.print("[" + targets[e] + ", " + weights[e] + "] ");
+            }
+            System.out.println();
+        }
+    }
+}
@@ -1,10 +1,7 @@
 package Graph;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 
-import static Graph.Graph.Vertex;
-
 /**
  *
  * This class contains two static nested classes UG (UndirectedGraph) and DG (DirectedGraph) which are used to
@@ -29,16 +26,14 @@ public class CycleDetection
          */
         public boolean unionFind()
         {
-            UndirectedGraph tempUG = new UndirectedGraph(ug);
+            DeletionOverlay tempUG = new DeletionOverlay(ug);
 
             int[] parent = new int[ug.vertices];
             Arrays.fill(parent, -1);
 
             for (int u = 0;u < ug.vertices;u++)
             {
-                ArrayList<Vertex> vertices = tempUG.adjacencyList.get(u);
-
-                while (!vertices.isEmpty())
+                while (tempUG.degree[u] > 0)
                 {
                     /* In case of undirected graph, an edge from u-v will be present two times. Once in,
                        neighbouring vertices of u and other in neighbouring vertices of v. Since,
@@ -48,16 +43,15 @@ public class CycleDetection
                        _v:  v->u
                      */
 
-                    Vertex v = vertices.remove(vertices.size()-1);
-                    Vertex _v = tempUG.getEdge(v.i, u);
+                    int v = ug.targets[u][tempUG.removeLast(u)];
 
-                    if (find(parent, u) == find(parent, v.i)) return true;
+                    if (find(parent, u) == find(parent, v)) return true;
                     else
                     {
-                        union(parent, u, v.i);
+                        union(parent, u, v);
 
                         // remove latter occurrence
-                        tempUG.adjacencyList.get(v.i).remove(_v);
+                        tempUG.removeNeighbour(v, u);
                     }
                 }
             }
@@ -77,8 +71,9 @@ public class CycleDetection
         // Returns the root parent of i
         private int find(int[] parent, int i)
         {
-            if (parent[i] == -1) return i;
-            else return find(parent, parent[i]);
+            while (parent[i] != -1) i = parent[i];
+
+            return i;
         }
 
         /**
@@ -92,32 +87,27 @@ public class CycleDetection
             int[] parent = new int[ug.vertices];
             Arrays.fill(parent, -1);
 
-            for (int u = 0; u < ug.vertices; u++)
+            DepthFirstSearch search = new DepthFirstSearch(ug);
+
+            // An edge to a visited vertex, other than the parent, closes a cycle
+            DepthFirstSearch.Visitor visitor = (u, i, v) ->
             {
-                if (parent[u] == -1)
+                if (parent[v] == -1)
                 {
-                    parent[u] = -2;
-                    if (DFS(u, parent)) return true;
+                    parent[v] = u;
+                    return DepthFirstSearch.DESCEND;
                 }
-            }
 
-            return false;
-        }
+                return parent[u] != v ? DepthFirstSearch.STOP : DepthFirstSearch.SKIP;
+            };
 
-        private boolean DFS(int u, int[] parent)
-        {
-            for (Vertex v : ug.adjacencyList.get(u))
+            for (int u = 0; u < ug.vertices; u++)
             {
-                boolean hasCycle = false;
-
-                if (parent[v.i] == -1)
+                if (parent[u] == -1)
                 {
-                    parent[v.i] = u;
-                    hasCycle = DFS(v.i, parent);
+                    parent[u] = -2;
+                    if (!search.run(u, visitor)) return true;
                 }
-                else if (parent[u] != v.i) hasCycle = true;
-
-                if (hasCycle) return true;
             }
 
             return false;
@@ -145,38 +135,45 @@ public class CycleDetection
             boolean[] onStack = new boolean[dg.vertices];
             Arrays.fill(parent, -1);
 
-            for (int u = 0; u < dg.vertices; u++)
+            DepthFirstSearch search = new DepthFirstSearch(dg);
+
+            // An edge to a vertex on the stack closes a cycle
+            DepthFirstSearch.Visitor visitor = new DepthFirstSearch.Visitor()
             {
-                if (parent[u] == -1)
+                @Override
+                public void preVisit(int u)
                 {
-                    parent[u] = -2;
-                    if (DFS(u, parent, onStack)) return true;
+                    onStack[u] = true;
                 }
-            }
-
-            return false;
-        }
 
-        private boolean DFS(int u, int[] parent, boolean[] onStack)
-        {
-            onStack[u] = true;
+                @Override
+                public int edge(int u, int i, int v)
+                {
+                    if (parent[v] == -1)
+                    {
+                        parent[v] = u;
+                        return DepthFirstSearch.DESCEND;
+                    }
 
-            for (Vertex v : dg.adjacencyList.get(u))
-            {
-                boolean hasCycle = false;
+                    return onStack[v] ? DepthFirstSearch.STOP : DepthFirstSearch.SKIP;
+                }
 
-                if (parent[v.i] == -1)
+                @Override
+                public void postVisit(int u)
                 {
-                    parent[v.i] = u;
-                    hasCycle = DFS(v.i, parent, onStack);
+                    onStack[u] = false;
                 }
-                else if (onStack[v.i]) hasCycle = true;
+            };
 
-                if (hasCycle) return true;
+            for (int u = 0; u < dg.vertices; u++)
+            {
+                if (parent[u] == -1)
+                {
+                    parent[u] = -2;
+                    if (!search.run(u, visitor)) return true;
+                }
             }
 
-            onStack[u] = false;
-
             return false;
         }
     }
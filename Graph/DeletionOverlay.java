@@ -0,0 +1,135 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Logical copy of a graph from which edges can be removed without changing or copying the graph. A removed edge is
+ * only marked in a bitset, hence the overlay takes one bit per edge and four ints per vertex, instead of the two ints
+ * per edge taken by a copy of the graph.
+ *
+ * removeLast(int) and removeNeighbour(int, int) behave the same as the methods of Graph with the same name. The
+ * returned or searched indices are the indices of the edges in the arrays of the graph, hence the removed edge u -> v
+ * is graph.targets[u][i] with weight graph.weights[u][i].
+ *
+ * It is used by the algorithms which consume the edges of a graph one by one, eg, kruskals, union-find and finding
+ * an euler trail. The graph should not be changed while the overlay is in use.
+ */
+final class DeletionOverlay
+{
+    private final Graph graph;
+
+    // Number of edges of u which have not been removed
+    final int[] degree;
+
+    // All the edges of u at an index lower than start[u] or at end[u] or later have been removed
+    private final int[] start;
+    private final int[] end;
+
+    // Edge i of u is bit offsets[u]+i of removed
+    private final int[] offsets;
+    private final long[] removed;
+
+    DeletionOverlay(Graph graph)
+    {
+        this.graph = graph;
+
+        degree = Arrays.copyOf(graph.degree, graph.vertices);
+        start = new int[graph.vertices];
+        end = Arrays.copyOf(graph.degree, graph.vertices);
+
+        offsets = new int[graph.vertices+1];
+        for (int u = 0;u < graph.vertices;u++) offsets[u+1] = offsets[u] + degree[u];
+
+        removed = new long[(offsets[graph.vertices] + 63) >>> 6];
+    }
+
+    /**
+     *
+     * @param u source vertex having at least one edge left
+     * @return index of the removed edge, which is the last edge of u which had not been removed
+     */
+    int removeLast(int u)
+    {
+        int i = end[u]-1;
+        while (isRemoved(u, i)) i--;
+
+        remove(u, i);
+        end[u] = i;
+
+        return i;
+    }
+
+    /**
+     * Removes the first occurrence of v, which has not been removed, from the neighbours of u. If the edge index of
+     * the graph is enabled, the search starts at the first occurrence of v, hence the edge is found in O(1) time
+     * unless it has parallel edges. The removed edges are skipped 64 at a time.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @return true if the edge was found else false
+     */
+    boolean removeNeighbour(int u, int v)
+    {
+        int[] neighbours = graph.targets[u];
+
+        start[u] = next(u, start[u]);
+        int from = start[u];
+
+        if (graph.edgeIndex != null)
+        {
+            int first = graph.indexOf(u, v);
+            if (first == -1) return false;
+
+            from = Math.max(from, first);
+        }
+
+        for (int i = next(u, from);i < end[u];i = next(u, i+1))
+        {
+            if (neighbours[i] == v)
+            {
+                remove(u, i);
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    // Index of the first edge of u at index i or later which has not been removed or end[u] if there is no such edge
+    private int next(int u, int i)
+    {
+        int bit = offsets[u]+i;
+        int last = offsets[u]+end[u];
+
+        while (bit < last)
+        {
+            // Edges of the word at bit or later which have not been removed
+            long present = ~removed[bit >>> 6] & -1L << bit;
+
+            if (present != 0)
+            {
+                bit = (bit & ~63) + Long.numberOfTrailingZeros(present);
+                break;
+            }
+
+            bit = (bit & ~63) + 64;
+        }
+
+        return Math.min(bit, last) - offsets[u];
+    }
+
+    private boolean isRemoved(int u, int i)
+    {
+        int bit = offsets[u]+i;
+        return (removed[bit >>> 6] & 1L << bit) != 0;
+    }
+
+    private void remove(int u, int i)
+    {
+        int bit = offsets[u]+i;
+        removed[bit >>> 6] |= 1L << bit;
+
+        degree[u]--;
+    }
+}
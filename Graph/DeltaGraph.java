@@ -0,0 +1,525 @@
+package Graph;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * Graph which can be read and changed at the same time. The edges are split into two layers:
+ *
+ *     1: base, an immutable CsrGraph
+ *     2: delta, the edges added to and removed from the base since it was built
+ *
+ * The neighbours of a vertex are the neighbours in the base which have not been removed, followed by the added ones.
+ * They are merged on the fly while they are read, hence no edge is copied while edges are added or removed.
+ *
+ * Readers never see a change in the middle of an algorithm. snapshot() returns an immutable GraphView of the graph at
+ * the time of the call, which can be passed to GraphTraversal, ShortestPath, etc. while other threads keep adding and
+ * removing edges. A snapshot only shares the unchanged parts of the delta with the live graph, since the vertices
+ * changed after the snapshot was taken are copied before they are changed.
+ *
+ * Once the delta becomes large, it is folded into a new base by a background compaction. The compaction merges a
+ * snapshot, hence readers and writers are not paused while it runs. The edges changed while it runs are written to a
+ * log and applied to the new base when it is installed.
+ *
+ * Example:
+ *
+ *     DeltaGraph graph = new DeltaGraph(ug);
+ *
+ *     // writer threads
+ *     graph.addEdge(u, v, w);
+ *     graph.removeEdge(u, v);
+ *
+ *     // reader threads
+ *     int[] distance = new GraphTraversal(graph.snapshot()).BFS(source);
+ *
+ * NOTE: Removing an edge takes O(degree) time, since its neighbours in the base are searched. Reading the i-th
+ *       neighbour of a vertex takes O(r) time, where r is the number of its removed base edges which have not been
+ *       compacted yet.
+ */
+public final class DeltaGraph
+{
+    // Vertices are grouped into pages, so that a page can be copied instead of the whole delta
+    private static final int PAGE_SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+
+    // Compaction is started once the delta holds more than this many edges and more than 1/8 of the edges of the base
+    private static final int MIN_COMPACTION_EDGES = 1 << 16;
+
+    private static final int ADD = 0;
+    private static final int REMOVE = 1;
+
+    private final int vertices;
+    private final boolean mirrored;
+
+    private volatile Snapshot published;
+
+    // Set by a writer, cleared once the change is published
+    private volatile boolean dirty;
+
+    /* State written by the writers, guarded by this. The published snapshot shares its pages and records, hence they
+       are copied before they are changed unless they have already been copied since the last publish, ie, their epoch
+       is the current epoch. */
+    private CsrGraph base;
+    private VertexDelta[][] pages;
+    private boolean pagesCopied;
+    private final int[] pageEpoch;
+    private int epoch = 1;
+
+    // Number of edges added to or removed from the base
+    private long deltaEdges;
+
+    // Operations done while a compaction is running, 4 ints each: operation, u, v, weight. null if none is running
+    private int[] log;
+    private int logSize;
+    private CompletableFuture<Void> compaction;
+
+    /**
+     *
+     * @param graph graph whose edges form the first base. Later changes to the graph are not reflected.
+     */
+    public DeltaGraph(Graph graph)
+    {
+        vertices = graph.vertices;
+        mirrored = graph.mirrored();
+
+        base = graph.freeze();
+        pages = new VertexDelta[(vertices + PAGE_SIZE-1) >>> PAGE_SHIFT][];
+        pageEpoch = new int[pages.length];
+
+        published = new Snapshot(base, pages);
+    }
+
+    public int vertices()
+    {
+        return vertices;
+    }
+
+    /**
+     * Adds an edge in O(1) amortized time. Same as Graph#addEdge(int, int, int), the edge is also added in the opposite
+     * direction if the graph was built from an undirected or bipartite graph.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @param weight weight of the edge or Graph.NO_WEIGHT
+     */
+    public synchronized void addEdge(int u, int v, int weight)
+    {
+        append(u, v, weight);
+        if (mirrored) append(v, u, weight);
+
+        logged(ADD, u, v, weight);
+    }
+
+    /**
+     * Removes the first occurrence of v from the neighbours of u, and the first occurrence of u having the same weight
+     * from the neighbours of v if the graph was built from an undirected or bipartite graph.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @return true if the edge was found else false
+     */
+    public synchronized boolean removeEdge(int u, int v)
+    {
+        Snapshot current = new Snapshot(base, pages);
+
+        int i = current.indexOf(u, v, 0, false);
+        if (i == -1) return false;
+
+        int weight = current.weight(u, i);
+        removeAt(u, i);
+
+        if (mirrored) removeAt(v, new Snapshot(base, pages).indexOf(v, u, weight, true));
+
+        logged(REMOVE, u, v, weight);
+
+        return true;
+    }
+
+    /**
+     *
+     * @return immutable view of all the edges added and removed so far. Later changes are not reflected in it.
+     */
+    public GraphView snapshot()
+    {
+        if (dirty)
+        {
+            synchronized (this)
+            {
+                publish();
+            }
+        }
+
+        return published;
+    }
+
+    /**
+     * Starts folding the delta into a new base in the background, if a compaction is not already running. It is also
+     * started automatically once the delta becomes large.
+     *
+     * @return future which completes once the new base has been installed
+     */
+    public synchronized CompletableFuture<Void> compact()
+    {
+        if (compaction != null) return compaction;
+
+        publish();
+        Snapshot snapshot = published;
+
+        log = new int[64];
+        logSize = 0;
+
+        compaction = CompletableFuture.runAsync(() ->
+        {
+            CsrGraph merged = null;
+
+            try
+            {
+                merged = snapshot.merge();
+            }
+            finally
+            {
+                install(merged);
+            }
+        });
+
+        return compaction;
+    }
+
+    // Replaces the base by the merged one and applies the operations done since the merged snapshot was taken
+    private synchronized void install(CsrGraph merged)
+    {
+        int[] log = this.log;
+        int logSize = this.logSize;
+
+        this.log = null;
+        compaction = null;
+
+        // The compaction failed, the current base and delta are kept
+        if (merged == null) return;
+
+        base = merged;
+        pages = new VertexDelta[pages.length][];
+        pagesCopied = true;
+        epoch++;
+        deltaEdges = 0;
+
+        for (int i = 0;i < logSize;i += 4)
+        {
+            int u = log[i+1], v = log[i+2], weight = log[i+3];
+
+            if (log[i] == ADD)
+            {
+                append(u, v, weight);
+                if (mirrored) append(v, u, weight);
+            }
+            else
+            {
+                removeAt(u, new Snapshot(base, pages).indexOf(u, v, weight, true));
+                if (mirrored) removeAt(v, new Snapshot(base, pages).indexOf(v, u, weight, true));
+            }
+        }
+
+        publish();
+    }
+
+    // Should be called while holding the lock
+    private void publish()
+    {
+        if (!dirty) return;
+
+        published = new Snapshot(base, pages);
+
+        // The published pages and records should not be changed anymore
+        pagesCopied = false;
+        epoch++;
+        dirty = false;
+    }
+
+    // Should be called while holding the lock, after the operation has been applied
+    private void logged(int operation, int u, int v, int weight)
+    {
+        if (log != null)
+        {
+            if (logSize == log.length) log = Arrays.copyOf(log, 2*log.length);
+
+            log[logSize++] = operation;
+            log[logSize++] = u;
+            log[logSize++] = v;
+            log[logSize++] = weight;
+        }
+        else if (deltaEdges > MIN_COMPACTION_EDGES && deltaEdges > base.targets.length >>> 3) compact();
+    }
+
+    private void append(int u, int v, int weight)
+    {
+        VertexDelta delta = writable(u);
+
+        if (delta.added == delta.targets.length)
+        {
+            int capacity = Math.max(4, delta.added + (delta.added >> 1));
+
+            delta.targets = Arrays.copyOf(delta.targets, capacity);
+            delta.weights = Arrays.copyOf(delta.weights, capacity);
+        }
+
+        delta.targets[delta.added] = v;
+        delta.weights[delta.added] = weight;
+        delta.added++;
+
+        deltaEdges++;
+    }
+
+    // Removes the i-th neighbour of u in the merged order
+    private void removeAt(int u, int i)
+    {
+        VertexDelta delta = writable(u);
+        int live = base.degree(u) - delta.removedCount;
+
+        if (i < live)
+        {
+            // Insert the position of the edge in the base into the sorted removed positions
+            int position = delta.basePosition(i);
+
+            if (delta.removedCount == delta.removed.length)
+                delta.removed = Arrays.copyOf(delta.removed, Math.max(4, 2*delta.removedCount));
+
+            int j = delta.removedCount;
+            while (j > 0 && delta.removed[j-1] > position)
+            {
+                delta.removed[j] = delta.removed[j-1];
+                j--;
+            }
+
+            delta.removed[j] = position;
+            delta.removedCount++;
+
+            deltaEdges++;
+        }
+        else
+        {
+            // An added edge is simply forgotten
+            int k = i - live;
+            int moved = delta.added-k-1;
+
+            System.arraycopy(delta.targets, k+1, delta.targets, k, moved);
+            System.arraycopy(delta.weights, k+1, delta.weights, k, moved);
+            delta.added--;
+
+            deltaEdges--;
+        }
+    }
+
+    // Record of u which can be changed without changing the published snapshot
+    private VertexDelta writable(int u)
+    {
+        if (!pagesCopied)
+        {
+            pages = pages.clone();
+            pagesCopied = true;
+        }
+
+        int p = u >>> PAGE_SHIFT;
+        if (pageEpoch[p] != epoch)
+        {
+            pages[p] = pages[p] == null ? new VertexDelta[PAGE_SIZE] : pages[p].clone();
+            pageEpoch[p] = epoch;
+        }
+
+        VertexDelta delta = pages[p][u & (PAGE_SIZE-1)];
+        if (delta == null || delta.epoch != epoch)
+        {
+            delta = new VertexDelta(delta, epoch);
+            pages[p][u & (PAGE_SIZE-1)] = delta;
+        }
+
+        dirty = true;
+
+        return delta;
+    }
+
+    /**
+     *
+     * Edges of a vertex in the delta. A record is only changed by the writer until it is published.
+     */
+    private static final class VertexDelta
+    {
+        private static final int[] EMPTY = {};
+
+        final int epoch;
+
+        // Sorted positions of the removed edges among the edges of the vertex in the base
+        int[] removed = EMPTY;
+        int removedCount;
+
+        // Edges added after the edges of the base
+        int[] targets = EMPTY;
+        int[] weights = EMPTY;
+        int added;
+
+        VertexDelta(VertexDelta delta, int epoch)
+        {
+            this.epoch = epoch;
+            if (delta == null) return;
+
+            removed = Arrays.copyOf(delta.removed, delta.removedCount);
+            removedCount = delta.removedCount;
+            targets = Arrays.copyOf(delta.targets, delta.added);
+            weights = Arrays.copyOf(delta.weights, delta.added);
+            added = delta.added;
+        }
+
+        // Position in the base of the i-th edge of the base which has not been removed
+        int basePosition(int i)
+        {
+            for (int j = 0;j < removedCount && removed[j] <= i;j++) i++;
+
+            return i;
+        }
+    }
+
+    static final class Snapshot implements GraphView
+    {
+        final CsrGraph base;
+        final VertexDelta[][] pages;
+
+        Snapshot(CsrGraph base, VertexDelta[][] pages)
+        {
+            this.base = base;
+            this.pages = pages;
+        }
+
+        private VertexDelta delta(int u)
+        {
+            VertexDelta[] page = pages[u >>> PAGE_SHIFT];
+
+            return page == null ? null : page[u & (PAGE_SIZE-1)];
+        }
+
+        @Override
+        public int vertices()
+        {
+            return base.vertices;
+        }
+
+        @Override
+        public int degree(int u)
+        {
+            VertexDelta delta = delta(u);
+            if (delta == null) return base.degree(u);
+
+            return base.degree(u) - delta.removedCount + delta.added;
+        }
+
+        @Override
+        public int target(int u, int i)
+        {
+            VertexDelta delta = delta(u);
+            if (delta == null) return base.target(u, i);
+
+            int live = base.degree(u) - delta.removedCount;
+
+            return i < live ? base.target(u, delta.basePosition(i)) : delta.targets[i-live];
+        }
+
+        @Override
+        public int weight(int u, int i)
+        {
+            VertexDelta delta = delta(u);
+            if (delta == null) return base.weight(u, i);
+
+            int live = base.degree(u) - delta.removedCount;
+
+            return i < live ? base.weight(u, delta.basePosition(i)) : delta.weights[i-live];
+        }
+
+        /**
+         *
+         * @param u source vertex
+         * @param v destination vertex
+         * @param weight weight of the edge, used only if matchWeight is true
+         * @param matchWeight true if the edge should also have the given weight
+         * @return index of the first matching occurrence of v in the merged neighbours of u or -1 if there is none
+         */
+        int indexOf(int u, int v, int weight, boolean matchWeight)
+        {
+            VertexDelta delta = delta(u);
+            int start = base.offsets[u];
+            int end = base.offsets[u+1];
+
+            // Walk the edges of the base and the removed positions together, instead of mapping every index
+            int i = 0, r = 0;
+            for (int position = 0;position < end-start;position++)
+            {
+                if (delta != null && r < delta.removedCount && delta.removed[r] == position)
+                {
+                    r++;
+                    continue;
+                }
+
+                if (base.targets[start+position] == v && (!matchWeight || base.weights[start+position] == weight))
+                    return i;
+
+                i++;
+            }
+
+            if (delta == null) return -1;
+
+            for (int k = 0;k < delta.added;k++)
+            {
+                if (delta.targets[k] == v && (!matchWeight || delta.weights[k] == weight)) return i+k;
+            }
+
+            return -1;
+        }
+
+        // Builds a new base containing the merged neighbours of every vertex
+        CsrGraph merge()
+        {
+            int vertices = base.vertices;
+
+            int[] offsets = new int[vertices+1];
+            for (int u = 0;u < vertices;u++) offsets[u+1] = offsets[u] + degree(u);
+
+            int[] targets = new int[offsets[vertices]];
+            int[] weights = new int[offsets[vertices]];
+
+            IntStream.range(0, vertices).parallel().forEach(u -> merge(u, offsets[u], targets, weights));
+
+            return new CsrGraph(vertices, offsets, targets, weights);
+        }
+
+        private void merge(int u, int e, int[] targets, int[] weights)
+        {
+            VertexDelta delta = delta(u);
+            int start = base.offsets[u];
+            int degree = base.offsets[u+1] - start;
+
+            if (delta == null)
+            {
+                System.arraycopy(base.targets, start, targets, e, degree);
+                System.arraycopy(base.weights, start, weights, e, degree);
+
+                return;
+            }
+
+            int r = 0;
+            for (int position = 0;position < degree;position++)
+            {
+                if (r < delta.removedCount && delta.removed[r] == position)
+                {
+                    r++;
+                    continue;
+                }
+
+                targets[e] = base.targets[start+position];
+                weights[e] = base.weights[start+position];
+                e++;
+            }
+
+            System.arraycopy(delta.targets, 0, targets, e, delta.added);
+            System.arraycopy(delta.weights, 0, weights, e, delta.added);
+        }
+    }
+}
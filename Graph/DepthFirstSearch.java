@@ -0,0 +1,150 @@
+package Graph;
+
+/**
+ *
+ * Iterative DFS shared by the DFS based algorithms, ie, GraphTraversal, CycleDetection, CriticalPointsAndBridges,
+ * ConnectedComponents, TopologicalSort and MaxFlow. The path from the source to the current vertex is kept in an
+ * explicit int stack and every vertex on the path has a cursor, the index of its next edge to be explored, hence the
+ * depth of the search is only limited by the number of vertices, instead of the size of the thread stack.
+ *
+ * The algorithm decides which edges are followed and what is done on the way, using a Visitor. The callbacks are
+ * called in the same order as in the recursive DFS:
+ *
+ *     void DFS(int u)
+ *     {
+ *         preVisit(u);
+ *
+ *         for (int i = 0;i < graph.degree(u);i++)
+ *         {
+ *             int v = graph.target(u, i);
+ *
+ *             if (edge(u, i, v) == DESCEND)
+ *             {
+ *                 DFS(v);
+ *                 childFinished(u, v);
+ *             }
+ *         }
+ *
+ *         postVisit(u);
+ *     }
+ *
+ * A vertex may be visited again after it is finished, but it must not be descended into while it is on the stack.
+ * The search takes two ints per vertex, which can be reused by any number of searches on the same graph.
+ */
+final class DepthFirstSearch
+{
+    // Values returned by Visitor#edge(int, int, int)
+    static final int SKIP = 0;
+    static final int DESCEND = 1;
+    static final int STOP = 2;
+
+    interface Visitor
+    {
+        default void preVisit(int u) {}
+
+        /**
+         *
+         * @param u current vertex
+         * @param i index of the edge in the neighbours of u
+         * @param v neighbour of u
+         * @return DESCEND to visit v as a child of u, SKIP to move on to the next edge of u or STOP to end the search
+         */
+        int edge(int u, int i, int v);
+
+        default void childFinished(int u, int v) {}
+
+        default void postVisit(int u) {}
+    }
+
+    private final GraphView graph;
+
+    // stack[0] to stack[depth-1] is the path from the source to the current vertex
+    private final int[] stack;
+    private int depth;
+
+    // Index of the next edge to be explored of every vertex on the stack
+    private final int[] cursor;
+
+    DepthFirstSearch(GraphView graph)
+    {
+        this.graph = graph;
+
+        stack = new int[graph.vertices()];
+        cursor = new int[graph.vertices()];
+    }
+
+    /**
+     *
+     * @param source source vertex
+     * @param visitor callbacks of the algorithm
+     * @return false if the visitor stopped the search else true. The stack is left as it was when the search was
+     * stopped, ie, it holds the path from the source to the vertex whose edge returned STOP.
+     */
+    boolean run(int source, Visitor visitor)
+    {
+        depth = 0;
+        enter(source, visitor);
+
+        while (depth > 0)
+        {
+            int u = stack[depth-1];
+
+            if (cursor[u] < graph.degree(u))
+            {
+                int i = cursor[u]++;
+                int v = graph.target(u, i);
+                int action = visitor.edge(u, i, v);
+
+                if (action == DESCEND) enter(v, visitor);
+                else if (action == STOP) return false;
+            }
+            else
+            {
+                depth--;
+                visitor.postVisit(u);
+
+                if (depth > 0) visitor.childFinished(stack[depth-1], u);
+            }
+        }
+
+        return true;
+    }
+
+    private void enter(int u, Visitor visitor)
+    {
+        stack[depth++] = u;
+        cursor[u] = 0;
+
+        visitor.preVisit(u);
+    }
+
+    /**
+     *
+     * @return number of vertices on the stack
+     */
+    int depth()
+    {
+        return depth;
+    }
+
+    /**
+     *
+     * @param k position on the stack, 0 being the source
+     * @return vertex at position k
+     */
+    int vertexAt(int k)
+    {
+        return stack[k];
+    }
+
+    /**
+     *
+     * @param k position on the stack, 0 being the source
+     * @return index of the last edge explored by the vertex at position k, which is the edge to the vertex at position
+     * k+1 if there is one
+     */
+    int edgeAt(int k)
+    {
+        return cursor[stack[k]]-1;
+    }
+}
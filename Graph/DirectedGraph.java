@@ -1,22 +1,140 @@
 package Graph;
 
+import java.util.Arrays;
+
 public class DirectedGraph extends Graph
 {
+    // inDegree[u] is the number of edges ending at u. The out-degree of u is degree[u].
+    int[] inDegree;
+
+    /* Transpose of the graph, null until getTranspose() is called. Once it is built, every edge added to or removed
+       from either of the graphs is also added to or removed from the other one, hence it is never stale. */
     private DirectedGraph transpose;
 
     public DirectedGraph(int vertices) {
         super(vertices);
+
+        inDegree = new int[vertices];
     }
 
     public DirectedGraph(DirectedGraph dg)
     {
         super(dg);
+
+        inDegree = Arrays.copyOf(dg.inDegree, vertices);
+    }
+
+    @Override
+    public void addEdge(int u, int v, int weight)
+    {
+        append(u, v, weight);
+        inDegree[v]++;
+        version++;
+
+        if (transpose != null)
+        {
+            transpose.append(v, u, weight);
+            transpose.inDegree[u]++;
+            transpose.version++;
+        }
+    }
+
+    @Override
+    void removeAt(int u, int i)
+    {
+        int v = targets[u][i];
+        int weight = weights[u][i];
+
+        super.removeAt(u, i);
+        inDegree[v]--;
+
+        if (transpose != null) transpose.removeReversed(v, u, weight);
+    }
+
+    @Override
+    int removeLast(int u)
+    {
+        int i = super.removeLast(u);
+        inDegree[targets[u][i]]--;
+
+        if (transpose != null) transpose.removeReversed(targets[u][i], u, weights[u][i]);
+
+        return i;
+    }
+
+    // Removes the first edge u -> v having the given weight without changing the transpose
+    private void removeReversed(int u, int v, int weight)
+    {
+        int i = indexOf(u, v, weight);
+        if (i == -1) return;
+
+        super.removeAt(u, i);
+        inDegree[v]--;
+    }
+
+    @Override
+    void swapRemove(int u, int i)
+    {
+        int v = targets[u][i];
+        int weight = weights[u][i];
+
+        super.swapRemove(u, i);
+        inDegree[v]--;
+
+        if (transpose == null) return;
+
+        // Same as removeReversed, except that the order of the neighbours in the transpose is not kept either
+        int j = transpose.indexOf(v, u, weight);
+        if (j == -1) return;
+
+        transpose.swapRemoveOnly(v, j);
+        transpose.inDegree[u]--;
+    }
+
+    // Removes the i-th neighbour of u without changing the transpose
+    private void swapRemoveOnly(int u, int i)
+    {
+        super.swapRemove(u, i);
     }
 
     @Override
-    public void addEdge(Integer u, Integer v, Integer weight)
+    void setWeight(int u, int i, int weight)
+    {
+        int previous = weights[u][i];
+        super.setWeight(u, i, weight);
+
+        if (transpose == null) return;
+
+        // Change the weight of the first matching reversed edge
+        int v = targets[u][i];
+        int j = transpose.indexOf(v, u, previous);
+        if (j == -1) return;
+
+        transpose.own(v);
+        transpose.weights[v][j] = weight;
+        transpose.version++;
+    }
+
+    @Override
+    void bulkLoaded()
+    {
+        super.bulkLoaded();
+        Arrays.fill(inDegree, 0);
+
+        for (int u = 0;u < vertices;u++)
+        {
+            for (int i = 0;i < degree[u];i++) inDegree[targets[u][i]]++;
+        }
+    }
+
+    public int inDegree(int u)
     {
-        adjacencyList.get(u).add(new Graph.Vertex(v, weight));
+        return inDegree[u];
+    }
+
+    public int outDegree(int u)
+    {
+        return degree[u];
     }
 
     private void setTranspose()
@@ -25,12 +143,49 @@ public class DirectedGraph extends Graph
         transpose = new DirectedGraph(vertices);
         transpose.transpose = this;
 
+        // The in-degree of every vertex is known, hence the arrays of the transpose are allocated with their final size
+        for (int v = 0;v < vertices;v++)
+        {
+            if (inDegree[v] == 0) continue;
+
+            transpose.targets[v] = new int[inDegree[v]];
+            transpose.weights[v] = new int[inDegree[v]];
+        }
+
         for (int i = 0;i < vertices;i++)
         {
-            for (Graph.Vertex v : adjacencyList.get(i)) transpose.addEdge(v.i, i, v.w);
+            for (int j = 0;j < degree[i];j++) transpose.append(targets[i][j], i, weights[i][j]);
         }
+
+        transpose.inDegree = Arrays.copyOf(degree, vertices);
+
+        // Edges removed from or updated in the graph are found in its transpose in O(1) time only if it is indexed too
+        if (edgeIndex != null) transpose.enableEdgeIndex();
+    }
+
+    /**
+     * Also indexes the transpose, if it has been built, so that the edges removed using removeEdge(int, int) are also
+     * removed from the transpose in O(1) time.
+     */
+    @Override
+    public void enableEdgeIndex()
+    {
+        super.enableEdgeIndex();
+
+        if (transpose != null && transpose.edgeIndex == null) transpose.enableEdgeIndex();
+    }
+
+    boolean hasTranspose()
+    {
+        return transpose != null;
     }
 
+    /**
+     * The transpose is built on the first call in O(V+E) time. After that, it is kept up to date as edges are added to
+     * or removed from the graph, hence later calls take O(1) time.
+     *
+     * @return transpose of the graph
+     */
     public DirectedGraph getTranspose()
     {
         if (transpose == null) setTranspose();
@@ -0,0 +1,453 @@
+package Graph;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ *
+ * BFS over a graph split into shards, where every shard is held by a separate worker process. It computes the same
+ * distance[] as GraphTraversal#BFS(int), while every worker only holds the edges of its own shard.
+ *
+ * Every worker connects to every other worker over TCP or Unix domain sockets. The BFS is level synchronous:
+ *
+ *     1: Every worker expands its own frontier. Owned neighbours join the next frontier of the worker, whereas ghost
+ *        neighbours are batched per shard owning them.
+ *     2: Every worker sends one message to every other worker, containing the batch of vertices owned by the receiver.
+ *        The vertices are sorted and their gaps are varint encoded, hence a batch of dense vertices takes about one
+ *        byte per vertex.
+ *     3: Received vertices which have not been visited join the next frontier at the next level.
+ *
+ * A ghost is sent to its owner only once, since it is visited by the owner at the level it is first sent. The BFS ends
+ * after a level in which the frontier of every worker was empty.
+ *
+ * Example:
+ *
+ *     // in worker process i, addresses.get(i) is the address worker i listens on
+ *     Shard shard = Shard.load(directory.resolve("shard-" + i + ".graph"));
+ *
+ *     try (DistributedBFS bfs = new DistributedBFS(shard, addresses))
+ *     {
+ *         int[] local = bfs.BFS(source);      // called by every worker with the same source
+ *         int[] distance = bfs.gather(local); // whole distance[] at worker 0, null at the rest
+ *     }
+ */
+public final class DistributedBFS implements Closeable
+{
+    // Workers which are not listening yet are retried for this long while connecting
+    private static final long CONNECT_TIMEOUT_MILLIS = 30_000;
+
+    private static final int HEADER_BYTES = 12;
+
+    private final Shard shard;
+    private final Graph graph;
+    private final int id;
+
+    // peers[t] is the connection to worker t, null for this worker
+    private final SocketChannel[] peers;
+    private final ExecutorService senders;
+
+    /**
+     * Connects to all the other workers. Every worker should be created at about the same time, since every
+     * constructor waits until all the workers it connects to are listening.
+     *
+     * @param shard shard held by this worker
+     * @param addresses addresses.get(t) is the InetSocketAddress or UnixDomainSocketAddress worker t listens on
+     * @throws IOException if a worker cannot be reached
+     */
+    public DistributedBFS(Shard shard, List<? extends SocketAddress> addresses) throws IOException
+    {
+        if (addresses.size() != shard.shards())
+            throw new IllegalArgumentException("Expected the addresses of " + shard.shards() + " workers");
+
+        this.shard = shard;
+        this.graph = shard.getGraph();
+        this.id = shard.id();
+
+        peers = new SocketChannel[shard.shards()];
+        senders = Executors.newFixedThreadPool(Math.max(1, shard.shards()-1), r ->
+        {
+            Thread thread = new Thread(r, "bfs-sender");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try
+        {
+            connect(addresses);
+        }
+        catch (IOException e)
+        {
+            close();
+            throw e;
+        }
+    }
+
+    // Worker s accepts the connections of the workers after it and connects to the workers before it
+    private void connect(List<? extends SocketAddress> addresses) throws IOException
+    {
+        SocketAddress own = addresses.get(id);
+
+        try (ServerSocketChannel server = own instanceof UnixDomainSocketAddress ?
+                ServerSocketChannel.open(StandardProtocolFamily.UNIX) : ServerSocketChannel.open())
+        {
+            // A socket file left by an earlier run would prevent binding
+            if (own instanceof UnixDomainSocketAddress)
+                Files.deleteIfExists(((UnixDomainSocketAddress) own).getPath());
+            server.bind(own);
+
+            for (int t = 0;t < id;t++)
+            {
+                peers[t] = open(addresses.get(t));
+
+                ByteBuffer hello = ByteBuffer.allocate(4).putInt(0, id);
+                writeFully(peers[t], hello);
+            }
+
+            for (int accepted = id+1;accepted < peers.length;accepted++)
+            {
+                SocketChannel channel = server.accept();
+
+                ByteBuffer hello = ByteBuffer.allocate(4);
+                readFully(channel, hello);
+
+                int t = hello.getInt(0);
+                if (t <= id || t >= peers.length || peers[t] != null)
+                {
+                    channel.close();
+                    throw new IOException("Unexpected worker " + t);
+                }
+
+                peers[t] = channel;
+            }
+        }
+        finally
+        {
+            if (own instanceof UnixDomainSocketAddress)
+                Files.deleteIfExists(((UnixDomainSocketAddress) own).getPath());
+        }
+    }
+
+    private static SocketChannel open(SocketAddress address) throws IOException
+    {
+        long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MILLIS;
+
+        while (true)
+        {
+            try
+            {
+                return SocketChannel.open(address);
+            }
+            catch (ConnectException e)
+            {
+                if (System.currentTimeMillis() > deadline) throw e;
+            }
+            catch (IOException e)
+            {
+                // A Unix domain socket file which has not been created yet
+                if (!(address instanceof UnixDomainSocketAddress) || System.currentTimeMillis() > deadline) throw e;
+            }
+
+            try
+            {
+                Thread.sleep(20);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while connecting", e);
+            }
+        }
+    }
+
+    /**
+     * Should be called by every worker with the same source.
+     *
+     * @param source source vertex, labelled as in the original graph
+     * @return distance of every owned vertex of the shard from the source vertex, indexed by the vertices of the shard.
+     * Same as GraphTraversal#BFS(int), it is -1 for the vertices which are not reachable.
+     */
+    public int[] BFS(int source) throws IOException
+    {
+        int owned = shard.ownedVertices();
+
+        int[] distance = new int[owned];
+        Arrays.fill(distance, -1);
+
+        // Every owned vertex enters a frontier at most once, hence a frontier never holds more than V_s vertices
+        int[] frontier = new int[owned];
+        int[] next = new int[owned];
+        int size = 0;
+
+        int s = shard.local(source);
+        if (s != -1 && !shard.isGhost(s))
+        {
+            distance[s] = 0;
+            frontier[size++] = s;
+        }
+
+        boolean[] sent = new boolean[shard.ghostVertices()];
+        int[][] batch = new int[peers.length][16];
+        int[] batched = new int[peers.length];
+
+        for (int level = 0;;level++)
+        {
+            int nextSize = 0;
+            Arrays.fill(batched, 0);
+
+            for (int j = 0;j < size;j++)
+            {
+                int u = frontier[j];
+
+                for (int i = 0;i < graph.degree[u];i++)
+                {
+                    int v = graph.targets[u][i];
+
+                    if (v < owned)
+                    {
+                        if (distance[v] == -1)
+                        {
+                            distance[v] = level+1;
+                            next[nextSize++] = v;
+                        }
+                    }
+                    else if (!sent[v-owned])
+                    {
+                        sent[v-owned] = true;
+
+                        int t = shard.owner(v);
+                        if (batched[t] == batch[t].length) batch[t] = Arrays.copyOf(batch[t], 2*batched[t]);
+                        batch[t][batched[t]++] = shard.global(v);
+                    }
+                }
+            }
+
+            // Send the batches while receiving the batches of the other workers, so that no worker waits for a worker
+            // which is itself waiting to send
+            Future<?>[] sending = new Future<?>[peers.length];
+            for (int t = 0;t < peers.length;t++)
+            {
+                if (t == id) continue;
+
+                ByteBuffer message = encode(size > 0, batch[t], batched[t], 0).flip();
+                SocketChannel peer = peers[t];
+                sending[t] = senders.submit(() -> { writeFully(peer, message); return null; });
+            }
+
+            boolean active = size > 0;
+            for (int t = 0;t < peers.length;t++)
+            {
+                if (t == id) continue;
+
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                readFully(peers[t], header);
+
+                active |= header.getInt(0) != 0;
+                int count = header.getInt(4);
+
+                ByteBuffer body = ByteBuffer.allocate(header.getInt(8));
+                readFully(peers[t], body);
+                body.flip();
+
+                for (int k = 0, v = 0;k < count;k++)
+                {
+                    v += readVarint(body);
+
+                    int u = shard.local(v);
+                    if (u == -1 || shard.isGhost(u)) throw new IOException("Worker " + t + " sent vertex " + v);
+
+                    if (distance[u] == -1)
+                    {
+                        distance[u] = level+1;
+                        next[nextSize++] = u;
+                    }
+                }
+            }
+
+            await(sending);
+
+            if (!active) return distance;
+
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            size = nextSize;
+        }
+    }
+
+    /**
+     * Should be called by every worker after BFS(int). Every worker sends the distances of its owned vertices to
+     * worker 0.
+     *
+     * @param localDistance distances returned by BFS(int) of this worker
+     * @return distance of every vertex of the original graph at worker 0, null at the other workers
+     */
+    public int[] gather(int[] localDistance) throws IOException
+    {
+        int owned = shard.ownedVertices();
+
+        if (id != 0)
+        {
+            int[] global = new int[owned];
+            for (int u = 0;u < owned;u++) global[u] = shard.global(u);
+
+            // Owned vertices are in ascending order, hence their gaps are small. Distances follow them, shifted by one
+            // so that -1 is also encoded as a small value.
+            ByteBuffer message = encode(true, global, owned, owned);
+            for (int u = 0;u < owned;u++) writeVarint(message, localDistance[u]+1);
+
+            message.putInt(8, message.position() - HEADER_BYTES);
+            writeFully(peers[0], message.flip());
+
+            return null;
+        }
+
+        int[] distance = new int[shard.globalVertices()];
+        Arrays.fill(distance, -1);
+
+        for (int u = 0;u < owned;u++) distance[shard.global(u)] = localDistance[u];
+
+        for (int t = 1;t < peers.length;t++)
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(peers[t], header);
+
+            int count = header.getInt(4);
+            ByteBuffer body = ByteBuffer.allocate(header.getInt(8));
+            readFully(peers[t], body);
+            body.flip();
+
+            int[] global = new int[count];
+            for (int k = 0, v = 0;k < count;k++) global[k] = v += readVarint(body);
+            for (int k = 0;k < count;k++) distance[global[k]] = readVarint(body)-1;
+        }
+
+        return distance;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        senders.shutdownNow();
+
+        IOException failure = null;
+        for (SocketChannel peer : peers)
+        {
+            if (peer == null) continue;
+
+            try
+            {
+                peer.close();
+            }
+            catch (IOException e)
+            {
+                failure = e;
+            }
+        }
+
+        if (failure != null) throw failure;
+    }
+
+    /**
+     *
+     * @param active flag sent to the receiver
+     * @param vertices vertices to be sent, sorted in place
+     * @param n number of vertices to be sent
+     * @param extra number of varints which can still be written to the message
+     * @return message containing the header followed by the varint encoded gaps of the sorted vertices, positioned at
+     * its end
+     */
+    private static ByteBuffer encode(boolean active, int[] vertices, int n, int extra)
+    {
+        Arrays.sort(vertices, 0, n);
+
+        ByteBuffer message = ByteBuffer.allocate(HEADER_BYTES + 5*(n + extra));
+        message.position(HEADER_BYTES);
+
+        for (int k = 0, previous = 0;k < n;k++)
+        {
+            writeVarint(message, vertices[k]-previous);
+            previous = vertices[k];
+        }
+
+        message.putInt(0, active ? 1 : 0);
+        message.putInt(4, n);
+        message.putInt(8, message.position() - HEADER_BYTES);
+
+        return message;
+    }
+
+    // Writes the non-negative value 7 bits at a time, lowest bits first. The highest bit of a byte is set if more
+    // bytes follow
+    private static void writeVarint(ByteBuffer buffer, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+
+        buffer.put((byte) value);
+    }
+
+    private static int readVarint(ByteBuffer buffer)
+    {
+        int value = 0;
+
+        for (int shift = 0;;shift += 7)
+        {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+
+    private static void writeFully(SocketChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining()) channel.write(buffer);
+    }
+
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer) < 0) throw new IOException("Worker closed the connection");
+        }
+    }
+
+    private static void await(Future<?>[] futures) throws IOException
+    {
+        for (Future<?> future : futures)
+        {
+            if (future == null) continue;
+
+            try
+            {
+                future.get();
+            }
+            catch (ExecutionException e)
+            {
+                if (e.getCause() instanceof IOException) throw (IOException) e.getCause();
+                throw new IOException(e.getCause());
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while sending", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Open addressing hash table which maps an edge (u, v) to an int, without creating any object per entry. Both the
+ * vertices are packed in a single long key, u in the higher 32 bits and v in the lower 32 bits. Collisions are
+ * resolved using linear probing and the table is doubled whenever it becomes half full.
+ *
+ * It is used by Graph to find the index of v in the neighbours of u in O(1) time.
+ *
+ * @see Graph#enableEdgeIndex()
+ */
+final class EdgeIndex
+{
+    // Vertices are never negative, hence no edge can be packed into this key
+    private static final long FREE = -1L;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+
+    // true once putIfAbsent(int, int, int) has been called for a key which was already present, ie, the indexed graph
+    // may have parallel edges
+    boolean duplicates;
+
+    EdgeIndex(int expectedSize)
+    {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+    }
+
+    EdgeIndex(EdgeIndex index)
+    {
+        keys = index.keys.clone();
+        values = index.values.clone();
+        size = index.size;
+        duplicates = index.duplicates;
+    }
+
+    private static long key(int u, int v)
+    {
+        return ((long) u << 32) | (v & 0xFFFFFFFFL);
+    }
+
+    private int slot(long key)
+    {
+        // Spread the bits of both the vertices over the whole table (Fibonacci hashing)
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    /**
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @return value stored for (u, v) or -1 if there is none
+     */
+    int get(int u, int v)
+    {
+        long key = key(u, v);
+        int mask = keys.length-1;
+
+        for (int i = slot(key);keys[i] != FREE;i = (i+1) & mask)
+        {
+            if (keys[i] == key) return values[i];
+        }
+
+        return -1;
+    }
+
+    void put(int u, int v, int value)
+    {
+        long key = key(u, v);
+        int mask = keys.length-1;
+        int i = slot(key);
+
+        while (keys[i] != FREE && keys[i] != key) i = (i+1) & mask;
+
+        if (keys[i] == FREE)
+        {
+            keys[i] = key;
+            size++;
+        }
+        values[i] = value;
+
+        if (2*size > keys.length) resize();
+    }
+
+    void putIfAbsent(int u, int v, int value)
+    {
+        if (get(u, v) == -1) put(u, v, value);
+        else duplicates = true;
+    }
+
+    void remove(int u, int v)
+    {
+        long key = key(u, v);
+        int mask = keys.length-1;
+        int i = slot(key);
+
+        while (keys[i] != key)
+        {
+            if (keys[i] == FREE) return;
+            i = (i+1) & mask;
+        }
+
+        /* Linear probing cannot simply mark the slot as free, since it would break the probe sequence of the keys
+           placed after it. Instead, every following key of the cluster which can legally occupy the freed slot is
+           shifted back into it. */
+        int free = i;
+        for (int j = (i+1) & mask;keys[j] != FREE;j = (j+1) & mask)
+        {
+            int home = slot(keys[j]);
+
+            // Move keys[j] if its home slot does not lie cyclically in (free, j]
+            if (((j - home) & mask) >= ((j - free) & mask))
+            {
+                keys[free] = keys[j];
+                values[free] = values[j];
+                free = j;
+            }
+        }
+
+        keys[free] = FREE;
+        size--;
+    }
+
+    private void resize()
+    {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = new long[2*oldKeys.length];
+        values = new int[2*oldKeys.length];
+        Arrays.fill(keys, FREE);
+        size = 0;
+
+        for (int i = 0;i < oldKeys.length;i++)
+        {
+            if (oldKeys[i] != FREE) put((int) (oldKeys[i] >>> 32), (int) oldKeys[i], oldValues[i]);
+        }
+    }
+}
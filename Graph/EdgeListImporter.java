@@ -0,0 +1,456 @@
+package Graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * Imports a graph from a text file containing one edge per line. The file is split into byte ranges which are parsed
+ * in parallel, directly from bytes without creating any String. It is read twice:
+ *
+ *     1: The degree of every vertex is counted, after which the adjacency arrays are allocated with their exact size
+ *     2: Every edge is written straight into the adjacency arrays of the graph
+ *
+ * Every line is "u v" or "u v w" where u and v are vertex labels and w is an integer weight. The values can be
+ * separated by spaces, tabs or commas and any value after w is ignored. An edge without w has the weight
+ * Graph.NO_WEIGHT. A line which does not start with a digit, eg, a comment starting with # or % or the header of a CSV
+ * file, is skipped.
+ *
+ * The number of vertices is one more than the largest label found in the file. Since the edges are written by many
+ * threads, the neighbours of every vertex are sorted by vertex and then by weight at the end, hence importing the same
+ * file always results in the same graph.
+ *
+ * Example:
+ *
+ *     DirectedGraph graph = EdgeListImporter.readDirected(path, EdgeListImporter.Format.SNAP);
+ */
+public final class EdgeListImporter
+{
+    public enum Format
+    {
+        // Edge list of SNAP, vertices are labelled from 0
+        SNAP(0),
+        // Comma separated values, vertices are labelled from 0
+        CSV(0),
+        /* Coordinate Matrix Market file, vertices are labelled from 1. The first line which is not a comment is the
+           size line "rows columns entries", the graph has at least max(rows, columns) vertices. The banner is not
+           interpreted, eg, a symmetric matrix should be read using readUndirected. */
+        MATRIX_MARKET(1);
+
+        // Label of the first vertex
+        final int base;
+
+        Format(int base)
+        {
+            this.base = base;
+        }
+    }
+
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    // Degrees are counted in pages of 2^16 vertices which are allocated when a label of that page is first found
+    private static final int PAGE_SHIFT = 16;
+    private static final int PAGE_MASK = (1 << PAGE_SHIFT) - 1;
+
+    private EdgeListImporter() {}
+
+    public static DirectedGraph readDirected(Path path, Format format) throws IOException
+    {
+        return (DirectedGraph) read(path, format, GraphFile.DIRECTED, 0);
+    }
+
+    /**
+     *
+     * Every line is added as an edge in both the directions, same as UndirectedGraph.addEdge.
+     */
+    public static UndirectedGraph readUndirected(Path path, Format format) throws IOException
+    {
+        return (UndirectedGraph) read(path, format, GraphFile.UNDIRECTED, 0);
+    }
+
+    /**
+     *
+     * The labels in the file should follow the labelling rules of BipartiteGraph.
+     *
+     * @param L number of vertices in set L. The rest of the vertices are in set R.
+     */
+    public static BipartiteGraph readBipartite(Path path, Format format, int L) throws IOException
+    {
+        return (BipartiteGraph) read(path, format, GraphFile.BIPARTITE, L);
+    }
+
+    private static Graph read(Path path, Format format, int kind, int L) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            long start = 0;
+            int vertices = kind == GraphFile.BIPARTITE ? L : 0;
+
+            if (format == Format.MATRIX_MARKET)
+            {
+                // The size line is parsed like an edge, its first two values are the number of rows and columns
+                Parser parser = new Parser(channel, format, 0, size);
+
+                if (parser.next()) vertices = Math.max(vertices, parser.maxLabel+1);
+                start = parser.position();
+            }
+
+            int chunks = (int) Math.max(1, Math.min((size-start) / BUFFER_BYTES,
+                    4*Runtime.getRuntime().availableProcessors()));
+            long[] bounds = new long[chunks+1];
+            for (int k = 0;k <= chunks;k++) bounds[k] = start + (size-start)*k/chunks;
+
+            boolean mirrored = kind != GraphFile.DIRECTED;
+
+            // First pass: count the degrees
+            DegreeCounter counter = new DegreeCounter();
+            int[] maxLabel = new int[chunks];
+
+            parallel(chunks, k ->
+            {
+                Parser parser = new Parser(channel, format, bounds[k], bounds[k+1]);
+
+                while (parser.next())
+                {
+                    counter.increment(parser.u);
+                    if (mirrored) counter.increment(parser.v);
+                }
+
+                maxLabel[k] = parser.maxLabel;
+            });
+
+            for (int k = 0;k < chunks;k++) vertices = Math.max(vertices, maxLabel[k]+1);
+
+            Graph graph;
+            switch (kind)
+            {
+                case GraphFile.DIRECTED: graph = new DirectedGraph(vertices); break;
+                case GraphFile.UNDIRECTED: graph = new UndirectedGraph(vertices); break;
+                default: graph = new BipartiteGraph(L, vertices-L);
+            }
+
+            int n = vertices;
+            parallel(chunks, k ->
+            {
+                for (int u = (int) ((long) n*k/chunks);u < (long) n*(k+1)/chunks;u++)
+                {
+                    int degree = counter.get(u);
+                    if (degree == 0) continue;
+
+                    graph.targets[u] = new int[degree];
+                    graph.weights[u] = new int[degree];
+                    graph.degree[u] = degree;
+                }
+            });
+
+            // Second pass: the counter is decremented to find a free index in the arrays of the vertex
+            parallel(chunks, k ->
+            {
+                Parser parser = new Parser(channel, format, bounds[k], bounds[k+1]);
+
+                while (parser.next())
+                {
+                    int i = counter.decrement(parser.u);
+                    graph.targets[parser.u][i] = parser.v;
+                    graph.weights[parser.u][i] = parser.weight;
+
+                    if (mirrored)
+                    {
+                        int j = counter.decrement(parser.v);
+                        graph.targets[parser.v][j] = parser.u;
+                        graph.weights[parser.v][j] = parser.weight;
+                    }
+                }
+            });
+
+            parallel(chunks, k ->
+            {
+                long[] buffer = new long[0];
+
+                for (int u = (int) ((long) n*k/chunks);u < (long) n*(k+1)/chunks;u++)
+                {
+                    if (graph.degree[u] > buffer.length) buffer = new long[graph.degree[u]];
+                    sortNeighbours(graph, u, buffer);
+                }
+            });
+
+            graph.bulkLoaded();
+
+            return graph;
+        }
+    }
+
+    // Sorts the neighbours of u by vertex and then by weight
+    private static void sortNeighbours(Graph graph, int u, long[] buffer)
+    {
+        int degree = graph.degree[u];
+        if (degree < 2) return;
+
+        // Vertices are never negative, hence comparing the packed longs compares the vertices first. The sign bit of
+        // the weight is flipped, hence the low ints compare as the signed weights, ie, Graph.NO_WEIGHT and the
+        // negative weights come first.
+        for (int i = 0;i < degree;i++)
+        {
+            long weight = (graph.weights[u][i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL;
+            buffer[i] = (long) graph.targets[u][i] << 32 | weight;
+        }
+
+        Arrays.sort(buffer, 0, degree);
+
+        for (int i = 0;i < degree;i++)
+        {
+            graph.targets[u][i] = (int) (buffer[i] >>> 32);
+            graph.weights[u][i] = (int) buffer[i] ^ Integer.MIN_VALUE;
+        }
+    }
+
+    private interface Chunk
+    {
+        void run(int k) throws IOException;
+    }
+
+    // Runs the chunks 0 to chunks-1 in parallel
+    private static void parallel(int chunks, Chunk chunk) throws IOException
+    {
+        try
+        {
+            IntStream.range(0, chunks).parallel().forEach(k ->
+            {
+                try
+                {
+                    chunk.run(k);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     *
+     * Counts the degree of the vertices while the number of vertices is still unknown. It is shared by all the threads.
+     */
+    private static final class DegreeCounter
+    {
+        private final AtomicReferenceArray<AtomicIntegerArray> pages =
+                new AtomicReferenceArray<>(1 << (31 - PAGE_SHIFT));
+
+        void increment(int u)
+        {
+            AtomicIntegerArray page = pages.get(u >>> PAGE_SHIFT);
+
+            if (page == null)
+            {
+                // Another thread may allocate the page at the same time, only one of them is kept
+                pages.compareAndSet(u >>> PAGE_SHIFT, null, new AtomicIntegerArray(1 << PAGE_SHIFT));
+                page = pages.get(u >>> PAGE_SHIFT);
+            }
+
+            page.incrementAndGet(u & PAGE_MASK);
+        }
+
+        int decrement(int u)
+        {
+            return pages.get(u >>> PAGE_SHIFT).decrementAndGet(u & PAGE_MASK);
+        }
+
+        int get(int u)
+        {
+            AtomicIntegerArray page = pages.get(u >>> PAGE_SHIFT);
+
+            if (page == null) return 0;
+            else return page.get(u & PAGE_MASK);
+        }
+    }
+
+    /**
+     *
+     * Parses the edges of all the lines which start in a range of bytes of the file. The last line may end after the
+     * range. If the range starts in the middle of a line, that line belongs to the previous range and is skipped.
+     */
+    private static final class Parser
+    {
+        private final FileChannel channel;
+        private final int base;
+        private final long end;
+
+        private final byte[] bytes = new byte[BUFFER_BYTES];
+        private final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        private long bufferPosition; // position of bytes[0] in the file
+        private int index;
+        private int limit;
+
+        private int c; // last byte read, -1 at the end of the file
+
+        // Edge parsed by next()
+        int u;
+        int v;
+        int weight;
+
+        int maxLabel = -1;
+
+        Parser(FileChannel channel, Format format, long start, long end) throws IOException
+        {
+            this.channel = channel;
+            this.base = format.base;
+            this.end = end;
+
+            if (start > 0)
+            {
+                bufferPosition = start-1;
+                skipLine();
+            }
+            else bufferPosition = start;
+        }
+
+        // Position of the next byte in the file
+        long position()
+        {
+            return bufferPosition + index;
+        }
+
+        /**
+         *
+         * @return true if an edge was parsed else false if there is no line left in the range
+         */
+        boolean next() throws IOException
+        {
+            while (true)
+            {
+                long lineStart = position();
+                if (lineStart >= end) return false;
+
+                read();
+                while (c == ' ' || c == '\t' || c == '\r') read();
+
+                if (c == -1) return false;
+                if (c == '\n') continue;
+                if (c < '0' || c > '9')
+                {
+                    skipLine();
+                    continue;
+                }
+
+                u = label(lineStart);
+                skipSeparators();
+                if (c < '0' || c > '9') throw malformed(lineStart);
+                v = label(lineStart);
+                skipSeparators();
+
+                if (c == '-' || (c >= '0' && c <= '9')) weight = weight(lineStart);
+                else weight = Graph.NO_WEIGHT;
+
+                if (c != '\n') skipLine();
+
+                return true;
+            }
+        }
+
+        private int label(long lineStart) throws IOException
+        {
+            long value = 0;
+
+            while (c >= '0' && c <= '9')
+            {
+                value = value*10 + c-'0';
+                if (value > Integer.MAX_VALUE) throw malformed(lineStart);
+
+                read();
+            }
+
+            value -= base;
+            if (value < 0 || !endOfValue()) throw malformed(lineStart);
+
+            maxLabel = Math.max(maxLabel, (int) value);
+
+            return (int) value;
+        }
+
+        private int weight(long lineStart) throws IOException
+        {
+            boolean negative = c == '-';
+            if (negative) read();
+
+            if (c < '0' || c > '9') throw malformed(lineStart);
+
+            long value = 0;
+            while (c >= '0' && c <= '9')
+            {
+                value = value*10 + c-'0';
+                if (value > (long) Integer.MAX_VALUE+1) throw malformed(lineStart);
+
+                read();
+            }
+
+            if (negative) value = -value;
+            if (value > Integer.MAX_VALUE || !endOfValue()) throw malformed(lineStart);
+
+            return (int) value;
+        }
+
+        private boolean endOfValue()
+        {
+            return c == ' ' || c == '\t' || c == ',' || c == '\r' || c == '\n' || c == -1;
+        }
+
+        private void skipSeparators() throws IOException
+        {
+            while (c == ' ' || c == '\t' || c == ',') read();
+        }
+
+        // Skips the rest of the current line including '\n'
+        private void skipLine() throws IOException
+        {
+            do read(); while (c != '\n' && c != -1);
+        }
+
+        private void read() throws IOException
+        {
+            if (index == limit && !fill())
+            {
+                c = -1;
+                return;
+            }
+
+            c = bytes[index++] & 0xFF;
+        }
+
+        private boolean fill() throws IOException
+        {
+            bufferPosition += limit;
+            index = 0;
+            limit = 0;
+
+            buffer.clear();
+            while (buffer.hasRemaining())
+            {
+                int n = channel.read(buffer, bufferPosition + buffer.position());
+                if (n < 0) break;
+            }
+
+            limit = buffer.position();
+
+            return limit > 0;
+        }
+
+        private IOException malformed(long lineStart)
+        {
+            return new IOException("Malformed edge in the line starting at byte " + lineStart);
+        }
+    }
+}
@@ -1,10 +1,9 @@
 package Graph;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 
-import static Graph.Graph.Vertex;
-
 /**
  *
  * This class contains two static nested classes UG (UndirectedGraph) and DG (DirectedGraph) which contains methods
@@ -25,7 +24,7 @@ public class EulerTrailAndCycle
 
         private void initDegree()
         {
-            for (int u = 0; u < ug.vertices; u++) degree[u] = ug.adjacencyList.get(u).size();
+            System.arraycopy(ug.degree, 0, degree, 0, ug.vertices);
         }
 
         /**
@@ -139,8 +138,8 @@ public class EulerTrailAndCycle
                 }
             }
 
-            // Copy the original graph
-            UndirectedGraph tempGraph = new UndirectedGraph(ug);
+            // Logical copy of the original graph from which the edges are removed
+            DeletionOverlay tempGraph = new DeletionOverlay(ug);
             DFS(a, tempGraph, trail);
 
             return trail;
@@ -156,8 +155,8 @@ public class EulerTrailAndCycle
 
             ArrayList<Integer> cycle = new ArrayList<>();
 
-            // Copy the original graph
-            UndirectedGraph tempGraph = new UndirectedGraph(ug);
+            // Logical copy of the original graph from which the edges are removed
+            DeletionOverlay tempGraph = new DeletionOverlay(ug);
             DFS(0, tempGraph, cycle);
 
             return cycle;
@@ -166,31 +165,41 @@ public class EulerTrailAndCycle
         /**
          *
          * @param u source vertex
-         * @param tempGraph copy of original graph
+         * @param tempGraph logical copy of original graph
          * @param path ArrayList to store path
          */
-        private void DFS(int u, UndirectedGraph tempGraph, ArrayList<Integer> path)
+        private void DFS(int u, DeletionOverlay tempGraph, ArrayList<Integer> path)
         {
-            // Get all the neighbouring vertices of u
-            ArrayList<Vertex> vertices = tempGraph.adjacencyList.get(u);
+            /* A vertex is visited once for every edge it is reached by, hence the vertices are kept on an explicit
+               stack instead of being visited by DepthFirstSearch, which descends into a vertex at most once at a time.
+             */
+            int[] stack = new int[16];
+            int top = 0;
+
+            stack[top++] = u;
 
-            while (!vertices.isEmpty())
+            while (top > 0)
             {
-                /* In case of undirected graph, an edge from u-v will be present two times. Once in,
-                   neighbouring vertices of u and other in neighbouring vertices of v. Since, it should
-                   be traversed only one time. The latter occurrence will be removed.
-
-                    v:  u->v
-                   _v:  v->u
-                 */
-                Vertex v = vertices.remove(vertices.size()-1);
-                Vertex _v = tempGraph.getEdge(v.i, u);
-
-                tempGraph.adjacencyList.get(v.i).remove(_v);
-                DFS(v.i, tempGraph, path);
-            }
+                int x = stack[top-1];
+
+                if (tempGraph.degree[x] > 0)
+                {
+                    /* In case of undirected graph, an edge from u-v will be present two times. Once in,
+                       neighbouring vertices of u and other in neighbouring vertices of v. Since, it should
+                       be traversed only one time. The latter occurrence will be removed.
 
-            path.add(u);
+                        v:  u->v
+                       _v:  v->u
+                     */
+                    int v = ug.targets[x][tempGraph.removeLast(x)];
+
+                    tempGraph.removeNeighbour(v, x);
+
+                    if (top == stack.length) stack = Arrays.copyOf(stack, 2*top);
+                    stack[top++] = v;
+                }
+                else path.add(stack[--top]);
+            }
         }
     }
 
@@ -211,18 +220,9 @@ public class EulerTrailAndCycle
 
         private void initDegree()
         {
-            int[] inDegree = new int[dg.vertices];
-            int[] outDegree = new int[dg.vertices];
-
-            for (int u = 0; u < dg.vertices; u++)
-            {
-                outDegree[u] = dg.adjacencyList.get(u).size();
-
-                for (Graph.Vertex v : dg.adjacencyList.get(u)) inDegree[v.i]++;
-            }
-
-            degree[0] = inDegree;
-            degree[1] = outDegree;
+            // The graph keeps its in-degrees up to date, hence they are copied instead of being counted
+            degree[0] = Arrays.copyOf(dg.inDegree, dg.vertices);
+            degree[1] = Arrays.copyOf(dg.degree, dg.vertices);
         }
 
         /**
@@ -364,8 +364,8 @@ public class EulerTrailAndCycle
                 }
             }
 
-            // Copy the original graph
-            DirectedGraph tempGraph = new DirectedGraph(dg);
+            // Logical copy of the original graph from which the edges are removed
+            DeletionOverlay tempGraph = new DeletionOverlay(dg);
             DFS(a, tempGraph, trail);
 
             // reverse the elements for correct order
@@ -384,8 +384,8 @@ public class EulerTrailAndCycle
 
             ArrayList<Integer> cycle = new ArrayList<>();
 
-            // Copy the original graph
-            DirectedGraph tempGraph = new DirectedGraph(dg);
+            // Logical copy of the original graph from which the edges are removed
+            DeletionOverlay tempGraph = new DeletionOverlay(dg);
             DFS(0, tempGraph, cycle);
 
             // reverse the elements for correct order
@@ -397,21 +397,29 @@ public class EulerTrailAndCycle
         /**
          *
          * @param u parent vertex
-         * @param tempGraph copy of original graph
+         * @param tempGraph logical copy of original graph
          * @param path ArrayList to store path
          */
-        private void DFS(int u, DirectedGraph tempGraph, ArrayList<Integer> path)
+        private void DFS(int u, DeletionOverlay tempGraph, ArrayList<Integer> path)
         {
-            // Get all the neighbouring vertices of u
-            ArrayList<Vertex> vertices = tempGraph.adjacencyList.get(u);
+            // A vertex is visited once for every edge it is reached by, hence the vertices are kept on a stack
+            int[] stack = new int[16];
+            int top = 0;
+
+            stack[top++] = u;
 
-            while (!vertices.isEmpty())
+            while (top > 0)
             {
-                Vertex v = vertices.remove(vertices.size()-1);
-                DFS(v.i, tempGraph, path);
-            }
+                int x = stack[top-1];
 
-            path.add(u);
+                // Remove the last outgoing edge of x and follow it
+                if (tempGraph.degree[x] > 0)
+                {
+                    if (top == stack.length) stack = Arrays.copyOf(stack, 2*top);
+                    stack[top++] = dg.targets[x][tempGraph.removeLast(x)];
+                }
+                else path.add(stack[--top]);
+            }
         }
     }
 }
@@ -1,8 +1,10 @@
 package Graph;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 
-public class Graph
+public class Graph implements GraphView
 {
     public static class Vertex
     {
@@ -44,29 +46,556 @@ public class Graph
         }
     }
 
-    final ArrayList<ArrayList<Graph.Vertex>> adjacencyList;
+    /**
+     *
+     * Cursor over the neighbours of a vertex. It reads the primitive adjacency arrays directly, hence no object is
+     * created per edge. A single cursor can be reused for any number of vertices using reset(int).
+     *
+     * Example:
+     *
+     *     Graph.NeighbourCursor cursor = graph.neighbours(u);
+     *     while (cursor.next()) System.out.println(cursor.vertex() + " " + cursor.weight());
+     *
+     * NOTE: The cursor should not be used after an edge is added to or removed from the vertex it is iterating.
+     */
+    public static class NeighbourCursor
+    {
+        private final Graph graph;
+        private int u;
+        private int index;
+
+        NeighbourCursor(Graph graph)
+        {
+            this.graph = graph;
+        }
+
+        /**
+         *
+         * @param u vertex whose neighbours are to be iterated
+         * @return this cursor, positioned before the first neighbour of u
+         */
+        public NeighbourCursor reset(int u)
+        {
+            this.u = u;
+            this.index = -1;
+
+            return this;
+        }
+
+        /**
+         *
+         * @return true if the cursor moved to the next neighbour else false
+         */
+        public boolean next()
+        {
+            return ++index < graph.degree[u];
+        }
+
+        public int vertex()
+        {
+            return graph.targets[u][index];
+        }
+
+        /**
+         *
+         * @return weight of the current edge or Graph.NO_WEIGHT if the edge was added without a weight
+         */
+        public int weight()
+        {
+            return graph.weights[u][index];
+        }
+
+        public void setWeight(int weight)
+        {
+            graph.setWeight(u, index, weight);
+        }
+    }
+
+    // Weight stored for an edge which has been added without a weight
+    public static final int NO_WEIGHT = Integer.MIN_VALUE;
+
+    private static final int[] EMPTY = {};
+
+    /* For every vertex u, its neighbours are stored in targets[u][0] to targets[u][degree[u]-1] and the weight of the
+       edge u -> targets[u][i] is stored in weights[u][i]. Both the arrays of a vertex grow together when they are full.
+
+       Consider the graph used in printGraph(). Its adjacency arrays are:
+
+           targets[1]: [2, 3]    weights[1]: [3, 2]
+           targets[2]: [1, 4]    weights[2]: [3, 4]
+           ...
+
+       Compared to a list of Vertex objects, an edge takes 8 bytes and adding it does not create any object. */
+    int[][] targets;
+    int[][] weights;
+    int[] degree;
     int vertices;
 
+    // Maps an edge (u, v) to the index of the first occurrence of v in targets[u]. null until enableEdgeIndex() is called
+    EdgeIndex edgeIndex;
+
+    /* shared[u] is true if targets[u] and weights[u] may also be used by a copy of the graph, in which case they are
+       copied before they are changed. null until the graph is copied. */
+    boolean[] shared;
+
+    // Incremented whenever an edge is added, removed or has its weight changed
+    long version;
+
     public Graph(int vertices)
     {
         this.vertices = vertices;
 
-        adjacencyList = new ArrayList<>(vertices);
-        for (int i = 0; i < vertices; i++) adjacencyList.add(new ArrayList<>());
+        targets = new int[vertices][];
+        weights = new int[vertices][];
+        degree = new int[vertices];
+
+        Arrays.fill(targets, EMPTY);
+        Arrays.fill(weights, EMPTY);
     }
 
+    /**
+     * Creates a copy of the graph in O(V) time. The arrays of every vertex are shared by both the graphs until an edge
+     * of that vertex is added, removed or has its weight changed in either of them, at which point only the arrays of
+     * that vertex are copied. Hence, the copy takes memory only for the vertices which are changed.
+     *
+     * @param graph graph to be copied
+     */
     public Graph(Graph graph)
     {
         this.vertices = graph.vertices;
-        this.adjacencyList = new ArrayList<>(vertices);
 
-        for (ArrayList<Graph.Vertex> vertices : graph.adjacencyList)
-            this.adjacencyList.add(new ArrayList<>(vertices));
+        targets = Arrays.copyOf(graph.targets, vertices);
+        weights = Arrays.copyOf(graph.weights, vertices);
+        degree = Arrays.copyOf(graph.degree, vertices);
+
+        shared = new boolean[vertices];
+        Arrays.fill(shared, true);
+
+        if (graph.shared == null) graph.shared = new boolean[vertices];
+        Arrays.fill(graph.shared, true);
+
+        if (graph.edgeIndex != null) edgeIndex = new EdgeIndex(graph.edgeIndex);
+        version = graph.version;
     }
 
+    /**
+     * Builds an index of all the edges of the graph, after which hasEdge(int, int), getEdge(int, int) and finding an
+     * edge in the neighbours of a vertex take O(1) time instead of O(degree). The index is kept up to date as edges are
+     * added or removed and is also copied by the copy constructor.
+     *
+     * It takes around 24 bytes per edge. Hence, it is suggested only for graphs in which edges are looked up
+     * frequently, eg, residual graph of MaxFlow, or removed or updated frequently using removeEdge(int, int) and
+     * updateWeight(int, int, int).
+     */
+    public void enableEdgeIndex()
+    {
+        if (edgeIndex != null) return;
+
+        int edges = 0;
+        for (int u = 0;u < vertices;u++) edges += degree[u];
+
+        edgeIndex = new EdgeIndex(edges);
+        for (int u = 0;u < vertices;u++)
+        {
+            for (int i = 0;i < degree[u];i++) edgeIndex.putIfAbsent(u, targets[u][i], i);
+        }
+    }
+
+    /**
+     * An edge without a weight can be added by passing null as weight.
+     *
+     * @see Graph#addEdge(int, int, int)
+     */
     public void addEdge(Integer u, Integer v, Integer weight)
     {
-        adjacencyList.get(u).add(new Graph.Vertex(v, weight));
+        addEdge((int) u, (int) v, weight == null ? NO_WEIGHT : weight);
+    }
+
+    /**
+     * Adds an edge without boxing any of the arguments. Subclasses override this method to change how an edge is
+     * stored, eg, UndirectedGraph stores it in both the directions.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @param weight weight of the edge or Graph.NO_WEIGHT
+     */
+    public void addEdge(int u, int v, int weight)
+    {
+        append(u, v, weight);
+        version++;
+    }
+
+    /**
+     * Adds the edges src[i] -> dst[i] with weight w[i] for every i, in the same order as calling addEdge(int, int, int)
+     * for each of them. The number of new neighbours of every vertex is counted first and its arrays are grown only
+     * once to their final size, hence adding a large number of edges does not reallocate the arrays again and again.
+     *
+     * @param src source vertices
+     * @param dst destination vertices
+     * @param w weights of the edges or null if none of the edges has a weight
+     * @throws IllegalArgumentException if the arrays are not of the same length
+     */
+    public void addEdges(int[] src, int[] dst, int[] w)
+    {
+        if (src.length != dst.length || (w != null && w.length != src.length))
+            throw new IllegalArgumentException("src, dst and w should be of the same length");
+
+        boolean mirrored = mirrored();
+
+        int[] count = new int[vertices];
+        for (int i = 0;i < src.length;i++)
+        {
+            count[src[i]]++;
+            if (mirrored) count[dst[i]]++;
+        }
+
+        for (int u = 0;u < vertices;u++)
+        {
+            int capacity = degree[u] + count[u];
+
+            if (capacity > targets[u].length) resize(u, capacity);
+        }
+
+        for (int i = 0;i < src.length;i++) addEdge(src[i], dst[i], w == null ? NO_WEIGHT : w[i]);
+    }
+
+    // true if addEdge(int, int, int) also adds the edge v -> u
+    boolean mirrored()
+    {
+        return false;
+    }
+
+    // Adds v to the end of the neighbours of u. The version is not changed, since append is also called concurrently by
+    // ConcurrentGraphBuilder, hence the callers increment it.
+    final void append(int u, int v, int weight)
+    {
+        int n = degree[u];
+
+        if (n == targets[u].length) resize(u, Math.max(4, n + (n >> 1)));
+        else own(u);
+
+        targets[u][n] = v;
+        weights[u][n] = weight;
+        degree[u]++;
+
+        if (edgeIndex != null) edgeIndex.putIfAbsent(u, v, n);
+    }
+
+    /**
+     * Changes the weight of the i-th neighbour of u. Subclasses override this method to also update what they derive
+     * from the edges.
+     */
+    void setWeight(int u, int i, int weight)
+    {
+        own(u);
+        weights[u][i] = weight;
+        version++;
+    }
+
+    // Called after the adjacency arrays have been filled directly instead of using addEdge(int, int, int)
+    void bulkLoaded()
+    {
+        version++;
+    }
+
+    // Copies the arrays of u if they are shared with a copy of the graph, so that they can be changed
+    final void own(int u)
+    {
+        if (shared != null && shared[u]) resize(u, targets[u].length);
+    }
+
+    // Replaces the arrays of u by copies of the given capacity. The new arrays are not shared with any other graph.
+    private void resize(int u, int capacity)
+    {
+        targets[u] = Arrays.copyOf(targets[u], capacity);
+        weights[u] = Arrays.copyOf(weights[u], capacity);
+
+        if (shared != null) shared[u] = false;
+    }
+
+    /**
+     * Removes the first occurrence of v from the neighbours of u while keeping the order of the rest of the
+     * neighbours. Only u -> v is removed even if the graph is undirected.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @return true if the edge was found else false
+     */
+    boolean removeNeighbour(int u, int v)
+    {
+        int i = indexOf(u, v);
+        if (i == -1) return false;
+
+        removeAt(u, i);
+
+        return true;
+    }
+
+    /**
+     * Removes the i-th neighbour of u while keeping the order of the rest of the neighbours. Subclasses override this
+     * method to also update what they derive from the edges, eg, DirectedGraph updates its transpose.
+     *
+     * @param u source vertex
+     * @param i index of the neighbour, 0 <= i < degree[u]
+     */
+    void removeAt(int u, int i)
+    {
+        own(u);
+
+        int v = targets[u][i];
+
+        int moved = degree[u]-i-1;
+        System.arraycopy(targets[u], i+1, targets[u], i, moved);
+        System.arraycopy(weights[u], i+1, weights[u], i, moved);
+        degree[u]--;
+        version++;
+
+        if (edgeIndex != null)
+        {
+            // Every neighbour after i has moved one place to the left. If the removed edge was the first occurrence of
+            // v, the next occurrence, if any, becomes the first one.
+            boolean first = edgeIndex.get(u, v) == i;
+            if (first) edgeIndex.remove(u, v);
+
+            for (int j = i;j < degree[u];j++)
+            {
+                int w = targets[u][j];
+
+                if (w == v)
+                {
+                    if (first) edgeIndex.putIfAbsent(u, v, j);
+                }
+                else if (edgeIndex.get(u, w) == j+1) edgeIndex.put(u, w, j);
+            }
+        }
+    }
+
+    /**
+     * Removes the last neighbour of u. The removed edge stays in the arrays beyond degree[u] until another edge is
+     * added to u, hence it can still be read using the returned index.
+     *
+     * @param u source vertex
+     * @return index of the removed edge in targets[u] and weights[u]
+     */
+    int removeLast(int u)
+    {
+        int i = --degree[u];
+        version++;
+
+        if (edgeIndex != null && edgeIndex.get(u, targets[u][i]) == i) edgeIndex.remove(u, targets[u][i]);
+
+        return i;
+    }
+
+    /**
+     * Removes the edge u -> v, and v -> u as well if the graph is undirected or bipartite. If there are parallel edges
+     * between u and v, only one of them is removed.
+     *
+     * The removed edge is replaced by the last neighbour of u instead of shifting all the neighbours after it, hence
+     * the order of the neighbours is not kept. The edge is removed in O(1) amortized time if enableEdgeIndex() has
+     * been called, else finding it takes O(degree) time.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @return true if the edge was found else false
+     */
+    public boolean removeEdge(int u, int v)
+    {
+        int i = indexOf(u, v);
+        if (i == -1) return false;
+
+        int weight = weights[u][i];
+        swapRemove(u, i);
+
+        // Remove the reversed edge having the same weight, so that the parallel edges stay the same in both directions
+        if (mirrored()) swapRemove(v, indexOf(v, u, weight));
+
+        return true;
+    }
+
+    /**
+     * Changes the weight of the edge u -> v, and v -> u as well if the graph is undirected or bipartite. If there are
+     * parallel edges between u and v, only one of them is changed. Same as removeEdge(int, int), it takes O(1) time if
+     * enableEdgeIndex() has been called.
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @param weight new weight of the edge or Graph.NO_WEIGHT
+     * @return true if the edge was found else false
+     */
+    public boolean updateWeight(int u, int v, int weight)
+    {
+        int i = indexOf(u, v);
+        if (i == -1) return false;
+
+        int previous = weights[u][i];
+        if (previous == weight) return true;
+
+        setWeight(u, i, weight);
+        if (mirrored()) setWeight(v, indexOf(v, u, previous), weight);
+
+        return true;
+    }
+
+    /**
+     * The version starts at 0 and is incremented whenever an edge is added, removed or has its weight changed. Hence,
+     * anything derived from the graph, eg, a CsrGraph snapshot or a cached result, is stale if the version has changed
+     * since it was derived. A copy of the graph starts with the version of the copied graph.
+     *
+     * @return current version of the graph
+     */
+    public long version()
+    {
+        return version;
+    }
+
+    /**
+     * Removes the i-th neighbour of u in O(1) time by moving the last neighbour of u into its place. Subclasses override
+     * this method to also update what they derive from the edges, eg, DirectedGraph updates its transpose.
+     *
+     * @param u source vertex
+     * @param i index of the neighbour, 0 <= i < degree[u]
+     */
+    void swapRemove(int u, int i)
+    {
+        own(u);
+
+        int v = targets[u][i];
+        int last = --degree[u];
+
+        targets[u][i] = targets[u][last];
+        weights[u][i] = weights[u][last];
+        version++;
+
+        if (edgeIndex == null) return;
+
+        if (edgeIndex.get(u, v) == i)
+        {
+            edgeIndex.remove(u, v);
+
+            // The removed edge was the first occurrence of v. Another occurrence can only exist if parallel edges have
+            // been added, in which case the first of them has to be searched.
+            if (edgeIndex.duplicates)
+            {
+                for (int j = i;j < degree[u];j++)
+                {
+                    if (targets[u][j] == v)
+                    {
+                        edgeIndex.put(u, v, j);
+                        break;
+                    }
+                }
+            }
+        }
+
+        // The moved neighbour may now occur before its previous first occurrence
+        if (i < last && edgeIndex.get(u, targets[u][i]) > i) edgeIndex.put(u, targets[u][i], i);
+    }
+
+    @Override
+    public int vertices()
+    {
+        return vertices;
+    }
+
+    @Override
+    public int degree(int u)
+    {
+        return degree[u];
+    }
+
+    @Override
+    public int target(int u, int i)
+    {
+        return targets[u][i];
+    }
+
+    @Override
+    public int weight(int u, int i)
+    {
+        return weights[u][i];
+    }
+
+    /**
+     *
+     * @param u vertex whose neighbours are to be iterated
+     * @return a new cursor positioned before the first neighbour of u
+     */
+    public NeighbourCursor neighbours(int u)
+    {
+        return new NeighbourCursor(this).reset(u);
+    }
+
+    /**
+     * Creates an immutable CSR snapshot of the graph. Read-only algorithms like GraphTraversal, ShortestPath,
+     * ConnectedComponents, TopologicalSort and CriticalPointsAndBridges can directly be constructed from the snapshot.
+     * Edges added after the call are not part of the snapshot.
+     *
+     * @see CsrGraph
+     *
+     * @return CSR snapshot of the graph
+     */
+    public CsrGraph freeze()
+    {
+        return CsrGraph.of(this);
+    }
+
+    /**
+     * Writes the graph to a binary graph file which can be read back using load(Path) or opened without reading it
+     * using MappedGraph.open(Path).
+     *
+     * @see GraphFile
+     *
+     * @param path file to be written. It is replaced if it already exists.
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path path) throws IOException
+    {
+        GraphFile.write(this, path);
+    }
+
+    /**
+     * Reads a graph written by save(Path). The returned graph is of the same class as the saved graph, eg, a saved
+     * UndirectedGraph is loaded as an UndirectedGraph and can be cast to it. The adjacency arrays are filled in
+     * parallel using bulk reads, hence it is much faster than adding the edges one by one.
+     *
+     * @param path graph file
+     * @return graph stored in the file
+     * @throws IOException if the file cannot be read or is not a valid graph file
+     */
+    public static Graph load(Path path) throws IOException
+    {
+        return GraphFile.read(path);
+    }
+
+    /**
+     * Relabels the vertices so that the vertices which are used together by the algorithms have nearby labels. The
+     * graph itself is not changed.
+     *
+     * @see Reordering
+     *
+     * @param strategy strategy used to find the new order of the vertices
+     * @return reordered graph along with the permutation used to map the labels
+     */
+    public Reordering reorder(Reordering.Strategy strategy)
+    {
+        return Reordering.of(this, strategy);
+    }
+
+    /**
+     * Splits the vertices into shards having a low edge cut, which can be saved and loaded separately. The graph itself
+     * is not changed.
+     *
+     * @see Partitioning
+     *
+     * @param shards number of shards
+     * @param strategy strategy used to assign the vertices to the shards
+     * @return shard of every vertex, from which the shards are built
+     * @throws IllegalArgumentException if shards is not positive
+     */
+    public Partitioning partition(int shards, Partitioning.Strategy strategy)
+    {
+        return Partitioning.of(this, shards, strategy);
     }
 
     /*
@@ -102,14 +631,14 @@ public class Graph
      */
     public void printGraph()
     {
-        for (int i = 0;i < vertices;i++)
-        {
-            ArrayList<Graph.Vertex> eachVertex = adjacencyList.get(i);
+        for (int i = 0;i < vertices;i++) printNeighbours(i);
+    }
 
-            System.out.printf("%2d: ", i);
-            for (Graph.Vertex v : eachVertex) System.out.print(v + " ");
-            System.out.println();
-        }
+    void printNeighbours(int u)
+    {
+        System.out.printf("%2d: ", u);
+        for (int i = 0;i < degree[u];i++) System.out.print(vertexAt(u, i) + " ");
+        System.out.println();
     }
 
     /**
@@ -122,14 +651,50 @@ public class Graph
     {
         if (u >= vertices) return false;
 
-        for (Graph.Vertex vertex : adjacencyList.get(u)) if (vertex.i == v) return true;
+        return indexOf(u, v) != -1;
+    }
+
+    /**
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @return index of the first occurrence of v in the neighbours of u or -1 if there is no such edge
+     */
+    int indexOf(int u, int v)
+    {
+        if (edgeIndex != null) return edgeIndex.get(u, v);
 
-        return false;
+        int[] neighbours = targets[u];
+
+        for (int i = 0;i < degree[u];i++) if (neighbours[i] == v) return i;
+
+        return -1;
+    }
+
+    /**
+     *
+     * @param u source vertex
+     * @param v destination vertex
+     * @param weight weight of the edge
+     * @return index of the first occurrence of v having the given weight in the neighbours of u or -1 if there is no
+     * such edge. Only the first occurrence is looked up in O(1) time, the rest are searched only if it has a different
+     * weight, ie, if there are parallel edges.
+     */
+    int indexOf(int u, int v, int weight)
+    {
+        int i = indexOf(u, v);
+        if (i == -1 || weights[u][i] == weight) return i;
+
+        for (int j = i+1;j < degree[u];j++) if (targets[u][j] == v && weights[u][j] == weight) return j;
+
+        return -1;
     }
 
     /**
      * The method may produce NullPointerException. Usage of hasEdge(int, int) is suggested to avoid it.
      *
+     * NOTE: The returned vertex is a copy of the edge. Changing its weight does not change the graph.
+     *
      * @see Graph#hasEdge(int, int)
      *
      * @param u source vertex
@@ -138,8 +703,14 @@ public class Graph
      */
     Graph.Vertex getEdge(int u, int v)
     {
-        for (Graph.Vertex vertex : adjacencyList.get(u)) if (vertex.i == v) return vertex;
+        int i = indexOf(u, v);
+
+        if (i == -1) return null;
+        else return vertexAt(u, i);
+    }
 
-        return null;
+    private Graph.Vertex vertexAt(int u, int i)
+    {
+        return new Graph.Vertex(targets[u][i], weights[u][i] == NO_WEIGHT ? null : weights[u][i]);
     }
 }
@@ -0,0 +1,359 @@
+package Graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * Binary file format of a graph. All the values are stored in little endian byte order.
+ *
+ *     Header (64 bytes):
+ *         0: int  magic number
+ *         4: int  version
+ *         8: int  kind of the graph (GRAPH, DIRECTED, UNDIRECTED or BIPARTITE)
+ *        12: int  number of vertices V
+ *        16: long number of edges E
+ *        24: int  L of a bipartite graph, 0 for other kinds
+ *        28: unused
+ *
+ *     Body:
+ *        offsets: V+1 longs, the edges of u are the edges offsets[u] to offsets[u+1]-1
+ *        targets: E ints
+ *        weights: E ints
+ *
+ * The body is the CSR representation of the graph with 64 bit offsets, hence the file can be read in place after it
+ * is memory mapped. An undirected graph stores each edge in both the directions, same as in memory. The degree of u is
+ * offsets[u+1]-offsets[u].
+ *
+ * @see MappedGraph
+ * @see Graph#save(Path)
+ * @see Graph#load(Path)
+ */
+final class GraphFile
+{
+    static final int MAGIC = 0x48505247; // bytes "GRPH" in little endian order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    static final int GRAPH = 0;
+    static final int DIRECTED = 1;
+    static final int UNDIRECTED = 2;
+    static final int BIPARTITE = 3;
+
+    private GraphFile() {}
+
+    static long offsetsPosition()
+    {
+        return HEADER_BYTES;
+    }
+
+    static long targetsPosition(int vertices)
+    {
+        return HEADER_BYTES + 8L*(vertices+1);
+    }
+
+    static long weightsPosition(int vertices, long edges)
+    {
+        return targetsPosition(vertices) + 4L*edges;
+    }
+
+    static long size(int vertices, long edges)
+    {
+        return weightsPosition(vertices, edges) + 4L*edges;
+    }
+
+    // Size of the buffer used by every thread while writing or reading a file
+    private static final int BUFFER_BYTES = 1 << 20;
+
+    static int kindOf(GraphView graph)
+    {
+        if (graph instanceof DirectedGraph) return DIRECTED;
+        if (graph instanceof UndirectedGraph) return UNDIRECTED;
+        if (graph instanceof BipartiteGraph) return BIPARTITE;
+        return GRAPH;
+    }
+
+    /**
+     *
+     * Checks the magic number and the version present in the header
+     *
+     * @param header buffer containing at least the first HEADER_BYTES of the file
+     * @throws IOException if the file is not a graph file or has a different version
+     */
+    static void checkHeader(ByteBuffer header) throws IOException
+    {
+        header.order(ByteOrder.LITTLE_ENDIAN);
+
+        if (header.getInt(0) != MAGIC) throw new IOException("Not a graph file");
+        if (header.getInt(4) != VERSION)
+            throw new IOException("Unsupported graph file version " + header.getInt(4) + ", expected " + VERSION);
+    }
+
+    /**
+     *
+     * Writes the graph sequentially through a fixed size buffer, hence the graph can be larger than the heap if it is
+     * not stored on the heap itself.
+     *
+     * @param graph graph to be written
+     * @param path file to be written. It is replaced if it already exists.
+     */
+    static void write(GraphView graph, Path path) throws IOException
+    {
+        int vertices = graph.vertices();
+
+        long edges = 0;
+        for (int u = 0;u < vertices;u++) edges += graph.degree(u);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(kindOf(graph));
+            buffer.putInt(vertices);
+            buffer.putLong(edges);
+            buffer.putInt(graph instanceof BipartiteGraph ? ((BipartiteGraph) graph).L : 0);
+            while (buffer.position() < HEADER_BYTES) buffer.put((byte) 0);
+
+            long offset = 0;
+            for (int u = 0;u <= vertices;u++)
+            {
+                if (buffer.remaining() < 8) flush(buffer, channel);
+                buffer.putLong(offset);
+
+                if (u < vertices) offset += graph.degree(u);
+            }
+
+            for (int u = 0;u < vertices;u++)
+            {
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    if (buffer.remaining() < 4) flush(buffer, channel);
+                    buffer.putInt(graph.target(u, i));
+                }
+            }
+
+            for (int u = 0;u < vertices;u++)
+            {
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    if (buffer.remaining() < 4) flush(buffer, channel);
+                    buffer.putInt(graph.weight(u, i));
+                }
+            }
+
+            flush(buffer, channel);
+        }
+    }
+
+    static void flush(ByteBuffer buffer, FileChannel channel) throws IOException
+    {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    /**
+     *
+     * Reads a graph file into a new graph of the kind stored in the header. The offsets are read first so that the
+     * adjacency arrays of every vertex can be allocated with their exact size. The vertices are then split into
+     * chunks having almost the same number of edges and the chunks are filled in parallel. Every chunk reads its own
+     * range of the targets and the weights using positional bulk reads, hence no lock is needed.
+     *
+     * @param path graph file
+     * @return DirectedGraph, UndirectedGraph, BipartiteGraph or Graph depending on the kind of the graph written
+     * @throws IOException if the file cannot be read or is not a valid graph file
+     */
+    static Graph read(Path path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            checkHeader(header);
+
+            int kind = header.getInt(8);
+            int vertices = header.getInt(12);
+            long edges = header.getLong(16);
+            int L = header.getInt(24);
+
+            if (vertices < 0 || edges < 0 || channel.size() < size(vertices, edges))
+                throw new IOException("Graph file is truncated");
+
+            long[] offsets = readOffsets(channel, vertices, edges);
+
+            Graph graph;
+            switch (kind)
+            {
+                case DIRECTED: graph = new DirectedGraph(vertices); break;
+                case UNDIRECTED: graph = new UndirectedGraph(vertices); break;
+                case BIPARTITE: graph = new BipartiteGraph(L, vertices-L); break;
+                default: graph = new Graph(vertices);
+            }
+
+            for (int u = 0;u < vertices;u++) graph.degree[u] = (int) (offsets[u+1] - offsets[u]);
+
+            // A few chunks per thread so that a chunk with slow reads does not delay the rest
+            int chunks = Math.max(1, Math.min(vertices, 4*Runtime.getRuntime().availableProcessors()));
+            int[] first = new int[chunks+1];
+            for (int k = 0;k <= chunks;k++) first[k] = firstVertex(offsets, edges*k/chunks);
+            first[chunks] = vertices;
+
+            try
+            {
+                IntStream.range(0, chunks).parallel().forEach(k ->
+                {
+                    try
+                    {
+                        readChunk(channel, graph, offsets, first[k], first[k+1]);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+
+            graph.bulkLoaded();
+
+            return graph;
+        }
+    }
+
+    private static long[] readOffsets(FileChannel channel, int vertices, long edges) throws IOException
+    {
+        long[] offsets = new long[vertices+1];
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        LongBuffer longs = buffer.asLongBuffer();
+
+        long position = offsetsPosition();
+        for (int i = 0;i <= vertices;)
+        {
+            int n = Math.min(vertices+1-i, BUFFER_BYTES/8);
+
+            buffer.clear().limit(8*n);
+            readFully(channel, buffer, position);
+            longs.clear();
+            longs.get(offsets, i, n);
+
+            position += 8L*n;
+            i += n;
+        }
+
+        if (offsets[0] != 0 || offsets[vertices] != edges) throw new IOException("Graph file is corrupt");
+        for (int u = 0;u < vertices;u++)
+        {
+            long degree = offsets[u+1] - offsets[u];
+            if (degree < 0 || degree > Integer.MAX_VALUE) throw new IOException("Graph file is corrupt");
+        }
+
+        return offsets;
+    }
+
+    // Smallest u such that offsets[u] >= edge
+    private static int firstVertex(long[] offsets, long edge)
+    {
+        int low = 0, high = offsets.length-1;
+
+        while (low < high)
+        {
+            int mid = (low+high) >>> 1;
+
+            if (offsets[mid] < edge) low = mid+1;
+            else high = mid;
+        }
+
+        return low;
+    }
+
+    // Allocates and fills the adjacency arrays of the vertices from to to-1
+    private static void readChunk(FileChannel channel, Graph graph, long[] offsets, int from, int to)
+            throws IOException
+    {
+        for (int u = from;u < to;u++)
+        {
+            if (graph.degree[u] == 0) continue;
+
+            graph.targets[u] = new int[graph.degree[u]];
+            graph.weights[u] = new int[graph.degree[u]];
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+
+        long edges = offsets[offsets.length-1];
+        readInts(channel, buffer, targetsPosition(graph.vertices) + 4*offsets[from], graph.targets, graph.degree,
+                from, to);
+        readInts(channel, buffer, weightsPosition(graph.vertices, edges) + 4*offsets[from], graph.weights, graph.degree,
+                from, to);
+
+        // Else the file would load and the algorithms would fail later with an ArrayIndexOutOfBoundsException
+        for (int u = from;u < to;u++)
+        {
+            for (int i = 0;i < graph.degree[u];i++)
+            {
+                int v = graph.targets[u][i];
+                if (v < 0 || v >= graph.vertices) throw new IOException("Graph file is corrupt");
+            }
+        }
+    }
+
+    // Reads the consecutive ints starting at position into arrays[u][0] to arrays[u][degree[u]-1] for every u
+    private static void readInts(FileChannel channel, ByteBuffer buffer, long position, int[][] arrays, int[] degree,
+                                 int from, int to) throws IOException
+    {
+        long remaining = 0;
+        for (int u = from;u < to;u++) remaining += degree[u];
+
+        IntBuffer ints = buffer.clear().asIntBuffer();
+        ints.limit(0);
+
+        for (int u = from;u < to;u++)
+        {
+            for (int filled = 0;filled < degree[u];)
+            {
+                if (!ints.hasRemaining())
+                {
+                    int n = (int) Math.min(remaining, BUFFER_BYTES/4);
+
+                    buffer.clear().limit(4*n);
+                    readFully(channel, buffer, position);
+                    ints.clear().limit(n);
+
+                    position += 4L*n;
+                    remaining -= n;
+                }
+
+                int n = Math.min(degree[u]-filled, ints.remaining());
+                ints.get(arrays[u], filled, n);
+                filled += n;
+            }
+        }
+    }
+
+    // Reads until the buffer is full
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            int n = channel.read(buffer, position);
+            if (n < 0) throw new IOException("Graph file is truncated");
+
+            position += n;
+        }
+    }
+}
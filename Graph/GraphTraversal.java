@@ -1,15 +1,86 @@
 package Graph;
 
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 public class GraphTraversal
 {
-    private final Graph graph;
+    /* Direction-optimizing BFS switches to bottom-up once the edges of the frontier are more than 1/ALPHA of the edges
+       of the unvisited vertices, and back to top-down once the frontier has less than 1/BETA of the vertices. These
+       are the values suggested by Beamer et al. */
+    private static final int ALPHA = 15;
+    private static final int BETA = 18;
+
+    // Levels whose frontier has fewer edges than this are expanded by a single thread in parallelBFS(int)
+    private static final int SEQUENTIAL_EDGES = 1 << 14;
+
+    // Key of a vertex which has not been reached by any edge in parallelBFS(int)
+    private static final long UNREACHED = Long.MAX_VALUE;
+
+    // Returned by a Visitor for every vertex visited by BFS(int, int, EdgeFilter, Visitor) or DFS(...)
+    public enum Action
+    {
+        // Follow the edges of the vertex
+        CONTINUE,
+        // Do not follow the edges of the vertex, but continue with the rest of the traversal
+        SKIP,
+        // End the traversal
+        STOP
+    }
+
+    public interface Visitor
+    {
+        /**
+         *
+         * @param v vertex being visited
+         * @param depth distance of v from the source in BFS, depth of v in the DFS tree in DFS
+         * @return what to do next
+         */
+        Action visit(int v, int depth);
+    }
+
+    public interface EdgeFilter
+    {
+        /**
+         *
+         * @param u source of the edge
+         * @param v destination of the edge
+         * @param weight weight of the edge or Graph.NO_WEIGHT
+         * @return true if the edge should be followed
+         */
+        boolean test(int u, int v, int weight);
+    }
+
+    private final GraphView graph;
+
+    // true if every edge u -> v also has an edge v -> u, in which case the graph is its own transpose
+    private final boolean symmetric;
+
+    // Transpose of the graph, null until it is needed by directionOptimizingBFS(int), and the version of the graph it
+    // was built from
+    private GraphView transpose;
+    private long transposeVersion;
 
     public GraphTraversal(Graph graph)
+    {
+        this(graph, graph.mirrored());
+    }
+
+    public GraphTraversal(GraphView graph)
+    {
+        this(graph, graph instanceof Graph && ((Graph) graph).mirrored());
+    }
+
+    private GraphTraversal(GraphView graph, boolean symmetric)
     {
         this.graph = graph;
+        this.symmetric = symmetric;
     }
 
     /**
@@ -24,37 +95,406 @@ public class GraphTraversal
      */
     public int[] BFS(int source)
     {
-        LinkedList<Integer> queue = new LinkedList<>();
-        int[] parent = new int[graph.vertices];
-        int[] distance = new int[graph.vertices];
-        Arrays.fill(parent, -1);
+        Workspace workspace = Workspace.acquire(graph.vertices());
+
+        try
+        {
+            // Every vertex enters the queue at most once, hence an array of size V is enough
+            int[] queue = workspace.queue();
+            int head = 0, tail = 0;
+
+            // The returned distance[] is the only array of V elements allocated, which also tells the visited vertices
+            int[] distance = new int[graph.vertices()];
+            Arrays.fill(distance, -1);
+
+            distance[source] = 0;
+            queue[tail++] = source;
+
+            while (head < tail)
+            {
+                int u = queue[head++];
+
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    int v = graph.target(u, i);
+
+                    if (distance[v] == -1)
+                    {
+                        distance[v] = distance[u]+1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            return distance;
+        }
+        finally
+        {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Returns the same distance[] as BFS(int), but expands every level in the cheaper of the two directions:
+     *
+     *     1: Top-down: the edges of every vertex of the frontier are scanned for unvisited vertices
+     *     2: Bottom-up: the in-edges of every unvisited vertex are scanned until a parent in the frontier is found
+     *
+     * On low diameter graphs, eg, social networks, a few middle levels contain most of the vertices. Bottom-up stops
+     * scanning the in-edges of a vertex at its first parent, hence these levels inspect far fewer edges than top-down.
+     * The frontier is stored in a queue while going top-down and in a bitmap while going bottom-up.
+     *
+     * NOTE: In-edges of a directed graph are read from its transpose, which is built on the first call in O(V+E) time
+     *       unless the graph maintains its transpose, and built again if the graph has changed since.
+     *
+     * @param source source vertex
+     * @return distance
+     */
+    public int[] directionOptimizingBFS(int source)
+    {
+        int vertices = graph.vertices();
+
+        int[] distance = new int[vertices];
         Arrays.fill(distance, -1);
 
-        parent[source] = -2;
+        int[] queue = new int[vertices];
+        int[] nextQueue = new int[vertices];
+        long[] bitmap = null, nextBitmap = null;
+
+        // Edges of the vertices which have not been visited yet
+        long unexplored = 0;
+        for (int u = 0;u < vertices;u++) unexplored += graph.degree(u);
+
+        distance[source] = 0;
+        queue[0] = source;
+
+        int size = 1, previousSize = 0;
+        long frontierEdges = graph.degree(source);
+        unexplored -= frontierEdges;
+
+        boolean bottomUp = false;
+
+        for (int level = 0;size > 0;level++)
+        {
+            // Switch the direction and convert the frontier to the representation used by the new direction
+            if (!bottomUp && size > previousSize && frontierEdges > unexplored / ALPHA)
+            {
+                if (bitmap == null)
+                {
+                    bitmap = new long[(vertices + 63) >>> 6];
+                    nextBitmap = new long[bitmap.length];
+                }
+                else Arrays.fill(bitmap, 0);
+
+                for (int j = 0;j < size;j++) bitmap[queue[j] >>> 6] |= 1L << queue[j];
+                bottomUp = true;
+            }
+            else if (bottomUp && size < previousSize && size < vertices / BETA)
+            {
+                int n = 0;
+                for (int w = 0;w < bitmap.length;w++)
+                {
+                    for (long bits = bitmap[w];bits != 0;bits &= bits-1)
+                        queue[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                }
+
+                bottomUp = false;
+            }
+
+            int nextSize = 0;
+            long nextEdges = 0;
+
+            if (bottomUp)
+            {
+                GraphView in = inEdges();
+                Arrays.fill(nextBitmap, 0);
+
+                for (int v = 0;v < vertices;v++)
+                {
+                    if (distance[v] != -1) continue;
+
+                    for (int i = 0;i < in.degree(v);i++)
+                    {
+                        int u = in.target(v, i);
+
+                        if ((bitmap[u >>> 6] & 1L << u) != 0)
+                        {
+                            distance[v] = level+1;
+                            nextBitmap[v >>> 6] |= 1L << v;
+                            nextSize++;
+                            nextEdges += graph.degree(v);
+                            break;
+                        }
+                    }
+                }
+
+                long[] swap = bitmap;
+                bitmap = nextBitmap;
+                nextBitmap = swap;
+            }
+            else
+            {
+                for (int j = 0;j < size;j++)
+                {
+                    int u = queue[j];
+
+                    for (int i = 0;i < graph.degree(u);i++)
+                    {
+                        int v = graph.target(u, i);
+
+                        if (distance[v] == -1)
+                        {
+                            distance[v] = level+1;
+                            nextQueue[nextSize++] = v;
+                            nextEdges += graph.degree(v);
+                        }
+                    }
+                }
+
+                int[] swap = queue;
+                queue = nextQueue;
+                nextQueue = swap;
+            }
+
+            previousSize = size;
+            size = nextSize;
+            frontierEdges = nextEdges;
+            unexplored -= nextEdges;
+        }
+
+        return distance;
+    }
+
+    /**
+     * Returns the same distance[] as BFS(int), computed by all the threads of the common ForkJoinPool.
+     *
+     * @see GraphTraversal#parallelBFSParent(int)
+     *
+     * @param source source vertex
+     * @return distance
+     */
+    public int[] parallelBFS(int source)
+    {
+        int[] parent = new int[graph.vertices()];
+
+        return parallelBFS(source, parent);
+    }
+
+    /**
+     * Returns the parent of every vertex, which is the first vertex of the previous level, in the order of the queue of
+     * a serial BFS, having an edge to it, computed by all the threads of the common ForkJoinPool. -2 denotes the source
+     * and -1 an unreachable vertex.
+     *
+     * @param source source vertex
+     * @return parent
+     */
+    public int[] parallelBFSParent(int source)
+    {
+        int[] parent = new int[graph.vertices()];
+        parallelBFS(source, parent);
+
+        return parent;
+    }
+
+    /**
+     * Level synchronous BFS in which every level is split into chunks of the frontier having about the same number of
+     * edges, which are expanded by the threads of the common ForkJoinPool, so that idle threads steal the remaining
+     * chunks. Every chunk collects the vertices it reaches first in a buffer of its own, hence no queue is shared.
+     *
+     * The result does not depend on the scheduling of the threads. Edge i of the vertex at position p of the frontier
+     * has the key (p << 32 | i), which is the position at which the sequential BFS scans it. Every thread lowers the
+     * key of an unvisited vertex to the key of the edge reaching it using compare-and-set, hence once the level is
+     * expanded, the key of a vertex is the first edge reaching it in the sequential order. Sorting the reached vertices
+     * by their keys gives the parent a sequential BFS finds first and the same next frontier as the sequential BFS.
+     *
+     * @param source source vertex
+     * @param parent filled with the parent of every vertex
+     * @return distance
+     */
+    private int[] parallelBFS(int source, int[] parent)
+    {
+        int vertices = graph.vertices();
+
+        int[] distance = new int[vertices];
+        Arrays.fill(distance, -1);
+        Arrays.fill(parent, -1);
+
+        AtomicLongArray keys = null;
+
+        int[] frontier = new int[vertices];
+        int[] next = new int[vertices];
+        int size = 1;
+
         distance[source] = 0;
-        queue.add(source);
+        parent[source] = -2;
+        frontier[0] = source;
 
-        int currentDistance = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
 
-        while (!queue.isEmpty())
+        for (int level = 0;size > 0;level++)
         {
-            currentDistance++;
-            int u = queue.remove();
+            // first[p] is the number of edges of the vertices before position p of the frontier
+            long[] first = new long[size+1];
+            for (int p = 0;p < size;p++) first[p+1] = first[p] + graph.degree(frontier[p]);
+
+            int nextSize = 0;
+
+            if (threads == 1 || first[size] < SEQUENTIAL_EDGES)
+            {
+                // Same as BFS(int)
+                for (int p = 0;p < size;p++)
+                {
+                    int u = frontier[p];
+
+                    for (int i = 0;i < graph.degree(u);i++)
+                    {
+                        int v = graph.target(u, i);
 
-            for (Graph.Vertex v : graph.adjacencyList.get(u))
+                        if (distance[v] == -1)
+                        {
+                            distance[v] = level+1;
+                            parent[v] = u;
+                            next[nextSize++] = v;
+                        }
+                    }
+                }
+            }
+            else
             {
-                if (parent[v.i] == -1)
+                if (keys == null)
                 {
-                    parent[v.i] = u;
-                    distance[v.i] = currentDistance;
-                    queue.add(v.i);
+                    keys = new AtomicLongArray(vertices);
+                    for (int v = 0;v < vertices;v++) keys.set(v, UNREACHED);
                 }
+
+                // A few chunks per thread, so that the threads finishing early can steal the rest
+                int chunks = (int) Math.min(size, 8L*threads);
+                int[] start = new int[chunks+1];
+                for (int c = 1;c < chunks;c++) start[c] = firstPosition(first, first[size]*c/chunks);
+                start[chunks] = size;
+
+                int[][] reached = new int[chunks][];
+                int[] reachedSize = new int[chunks];
+
+                int[] current = frontier;
+                AtomicLongArray currentKeys = keys;
+                IntStream.range(0, chunks).parallel().forEach(c ->
+                        expand(current, start[c], start[c+1], distance, currentKeys, reached, reachedSize, c));
+
+                // The reached vertices in the order in which the sequential BFS would have reached them
+                int[] offset = new int[chunks+1];
+                for (int c = 0;c < chunks;c++) offset[c+1] = offset[c] + reachedSize[c];
+
+                long[] order = new long[offset[chunks]];
+                IntStream.range(0, chunks).parallel().forEach(c ->
+                {
+                    for (int j = 0;j < reachedSize[c];j++) order[offset[c]+j] = currentKeys.get(reached[c][j]);
+                });
+                Arrays.parallelSort(order);
+
+                int[] following = next;
+                int nextLevel = level+1;
+                IntStream.range(0, order.length).parallel().forEach(j ->
+                {
+                    int u = current[(int) (order[j] >>> 32)];
+                    int v = graph.target(u, (int) order[j]);
+
+                    distance[v] = nextLevel;
+                    parent[v] = u;
+                    following[j] = v;
+                });
+
+                nextSize = order.length;
             }
+
+            int[] swap = frontier;
+            frontier = next;
+            next = swap;
+            size = nextSize;
         }
 
         return distance;
     }
 
+    // Smallest position p of the frontier such that first[p] >= edge
+    private static int firstPosition(long[] first, long edge)
+    {
+        int low = 0, high = first.length-1;
+
+        while (low < high)
+        {
+            int mid = (low+high) >>> 1;
+
+            if (first[mid] < edge) low = mid+1;
+            else high = mid;
+        }
+
+        return low;
+    }
+
+    // Lowers the keys of the unvisited vertices reached by the frontier positions from to to-1. A vertex is added to
+    // reached[chunk] by the thread which lowers its key from UNREACHED, hence it is added exactly once.
+    private void expand(int[] frontier, int from, int to, int[] distance, AtomicLongArray keys, int[][] reached,
+                        int[] reachedSize, int chunk)
+    {
+        int[] buffer = new int[16];
+        int n = 0;
+
+        for (int p = from;p < to;p++)
+        {
+            int u = frontier[p];
+
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int v = graph.target(u, i);
+                if (distance[v] != -1) continue;
+
+                long key = (long) p << 32 | i;
+                long current = keys.get(v);
+
+                while (key < current)
+                {
+                    if (keys.compareAndSet(v, current, key))
+                    {
+                        if (current == UNREACHED)
+                        {
+                            if (n == buffer.length) buffer = Arrays.copyOf(buffer, 2*n);
+                            buffer[n++] = v;
+                        }
+
+                        break;
+                    }
+
+                    current = keys.get(v);
+                }
+            }
+        }
+
+        reached[chunk] = buffer;
+        reachedSize[chunk] = n;
+    }
+
+    // Graph whose edges v -> u are the edges u -> v of the graph
+    private GraphView inEdges()
+    {
+        if (symmetric) return graph;
+
+        // The transpose maintained by a directed graph is never stale, hence it is read instead of being built
+        if (graph instanceof DirectedGraph && ((DirectedGraph) graph).hasTranspose())
+            return ((DirectedGraph) graph).getTranspose();
+
+        // The graph may have changed since the transpose was built from it
+        long version = graph instanceof Graph ? ((Graph) graph).version() : 0;
+
+        if (transpose == null || transposeVersion != version)
+        {
+            transpose = CsrGraph.transpose(graph);
+            transposeVersion = version;
+        }
+
+        return transpose;
+    }
+
     /**
      *
      * @param source source vertex
@@ -63,29 +503,171 @@ public class GraphTraversal
      */
     public int[] BFS(int source, int destination)
     {
-        LinkedList<Integer> queue = new LinkedList<>();
-        int[] parent = new int[graph.vertices];
-        Arrays.fill(parent, -1);
+        Workspace workspace = Workspace.acquire(graph.vertices());
 
-        parent[source] = -2;
-        queue.add(source);
+        try
+        {
+            int[] queue = workspace.queue();
+            int head = 0, tail = 0;
+
+            Workspace.Marks parent = workspace.first;
+
+            parent.set(source, -2);
+            queue[tail++] = source;
+
+            while (head < tail && !parent.has(destination))
+            {
+                int u = queue[head++];
+
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    int v = graph.target(u, i);
+
+                    if (!parent.has(v))
+                    {
+                        parent.set(v, u);
+                        queue[tail++] = v;
+                    }
+                }
+            }
+
+            if (!parent.has(destination)) return null;
+
+            // The returned parent[] is only allocated once a path is found
+            int[] parents = new int[graph.vertices()];
+            for (int v = 0;v < parents.length;v++) parents[v] = parent.get(v, -1);
+
+            return parents;
+        }
+        finally
+        {
+            workspace.release();
+        }
+    }
+
+    /**
+     * Finds a shortest path from source to destination by searching forward from the source and backward from the
+     * destination, over the transpose of a directed graph, until both the searches meet. Every step expands a whole
+     * level of the side whose frontier has fewer edges, hence on a graph where the search from either end grows by a
+     * factor of b per level, a path of length d is found after exploring about 2 * b^(d/2) vertices instead of b^d.
+     *
+     * The first vertex reached by one side which has already been reached by the other is the meeting point. Since a
+     * whole level is expanded at a time, every vertex of the frontier which has not been reached by the other side is
+     * at least as far from it as the frontier of the other side, hence the first meeting point is on a shortest path.
+     *
+     * @param source source vertex
+     * @param destination destination vertex
+     * @return vertices of a shortest path, from source to destination, if path is found else null
+     */
+    public int[] bidirectionalBFS(int source, int destination)
+    {
+        if (source == destination) return new int[] {source};
+
+        GraphView reverse = inEdges();
+        Workspace workspace = Workspace.acquire(graph.vertices());
 
-        while (!queue.isEmpty() && parent[destination] == -1)
+        try
         {
-            int u = queue.remove();
+            // forward holds the parent of every vertex towards the source and backward towards the destination, hence
+            // only the vertices explored are touched
+            Workspace.Marks forward = workspace.first;
+            Workspace.Marks backward = workspace.second;
 
-            for (Graph.Vertex v : graph.adjacencyList.get(u))
+            int[] forwardQueue = workspace.queue();
+            int[] backwardQueue = workspace.secondQueue();
+            int forwardHead = 0, forwardTail = 0, backwardHead = 0, backwardTail = 0;
+
+            forward.set(source, -2);
+            forwardQueue[forwardTail++] = source;
+            backward.set(destination, -2);
+            backwardQueue[backwardTail++] = destination;
+
+            int meeting = -1;
+
+            while (meeting == -1 && forwardHead < forwardTail && backwardHead < backwardTail)
             {
-                if (parent[v.i] == -1)
+                if (edges(graph, forwardQueue, forwardHead, forwardTail) <=
+                        edges(reverse, backwardQueue, backwardHead, backwardTail))
                 {
-                    parent[v.i] = u;
-                    queue.add(v.i);
+                    int end = forwardTail;
+                    forwardTail = expandLevel(graph, forwardQueue, forwardHead, forwardTail, forward, backward);
+                    forwardHead = end;
+
+                    if (forwardTail > end && backward.has(forwardQueue[forwardTail-1]))
+                        meeting = forwardQueue[forwardTail-1];
+                }
+                else
+                {
+                    int end = backwardTail;
+                    backwardTail = expandLevel(reverse, backwardQueue, backwardHead, backwardTail, backward, forward);
+                    backwardHead = end;
+
+                    if (backwardTail > end && forward.has(backwardQueue[backwardTail-1]))
+                        meeting = backwardQueue[backwardTail-1];
                 }
             }
+
+            if (meeting == -1) return null;
+
+            // Vertices from the source to the meeting point and from the meeting point to the destination, excluding it
+            int before = 0, after = 0;
+            for (int v = meeting;v != -2;v = forward.get(v)) before++;
+            for (int v = backward.get(meeting);v != -2;v = backward.get(v)) after++;
+
+            int[] path = new int[before+after];
+
+            int i = before;
+            for (int v = meeting;v != -2;v = forward.get(v)) path[--i] = v;
+
+            i = before;
+            for (int v = backward.get(meeting);v != -2;v = backward.get(v)) path[i++] = v;
+
+            return path;
+        }
+        finally
+        {
+            workspace.release();
         }
+    }
+
+    // Number of edges of the vertices queue[head] to queue[tail-1]
+    private static long edges(GraphView graph, int[] queue, int head, int tail)
+    {
+        long edges = 0;
+        for (int i = head;i < tail;i++) edges += graph.degree(queue[i]);
 
-        if (parent[destination] == -1) return null;
-        else return parent;
+        return edges;
+    }
+
+    /**
+     * Expands the level queue[head] to queue[tail-1] of one side of bidirectionalBFS(int, int), appending the vertices
+     * reached to the queue. It stops right after appending the first vertex which has been reached by the other side,
+     * hence the last vertex of the queue is the meeting point if there is one.
+     *
+     * @return new tail of the queue
+     */
+    private static int expandLevel(GraphView graph, int[] queue, int head, int tail, Workspace.Marks parent,
+                                   Workspace.Marks other)
+    {
+        for (int end = tail;head < end;head++)
+        {
+            int u = queue[head];
+
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int v = graph.target(u, i);
+
+                if (!parent.has(v))
+                {
+                    parent.set(v, u);
+                    queue[tail++] = v;
+
+                    if (other.has(v)) return tail;
+                }
+            }
+        }
+
+        return tail;
     }
 
     /**
@@ -101,24 +683,363 @@ public class GraphTraversal
                2: -2 denotes a root vertex which is the source
                3: Other than that it denotes parent
          */
-        int[] parent = new int[graph.vertices];
+        int[] parent = new int[graph.vertices()];
         Arrays.fill(parent, -1);
 
         parent[u] = -2;
-        DFS(u, parent);
+        new DepthFirstSearch(graph).run(u, (x, i, v) ->
+        {
+            if (parent[v] != -1) return DepthFirstSearch.SKIP;
+
+            parent[v] = x;
+            return DepthFirstSearch.DESCEND;
+        });
 
         return parent;
     }
 
-    private void DFS(int u, int[] parent)
+    /**
+     * Returns the vertices reachable from the source in the order of BFS(int). The vertices are found on demand, ie,
+     * the edges of a vertex are only scanned once the vertex after it is asked for, hence taking the first k vertices
+     * only touches the edges of the first k-1 vertices.
+     *
+     * @param source source vertex
+     * @return lazy iterator over the vertices
+     */
+    public PrimitiveIterator.OfInt BFSIterator(int source)
+    {
+        return BFSIterator(source, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     *
+     * @param source source vertex
+     * @param maxDepth edges of the vertices at this distance from the source are not followed
+     * @param filter edges to be followed or null to follow all the edges
+     * @return lazy iterator over the vertices reachable from the source in BFS order
+     */
+    public PrimitiveIterator.OfInt BFSIterator(int source, int maxDepth, EdgeFilter filter)
+    {
+        return new LazyBFS(source, maxDepth, filter);
+    }
+
+    /**
+     * Returns the vertices reachable from the source in the order in which DFS(int) reaches them. The vertices are
+     * found on demand, the same as BFSIterator(int).
+     *
+     * @param source source vertex
+     * @return lazy iterator over the vertices
+     */
+    public PrimitiveIterator.OfInt DFSIterator(int source)
+    {
+        return DFSIterator(source, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     *
+     * @param source source vertex
+     * @param maxDepth edges of the vertices at this depth of the DFS tree are not followed
+     * @param filter edges to be followed or null to follow all the edges
+     * @return lazy iterator over the vertices reachable from the source in DFS order
+     */
+    public PrimitiveIterator.OfInt DFSIterator(int source, int maxDepth, EdgeFilter filter)
+    {
+        return new LazyDFS(source, maxDepth, filter);
+    }
+
+    /**
+     * Same as BFSIterator(int, int, EdgeFilter) as a sequential stream, eg,
+     *
+     *     int[] nearest = traversal.BFSStream(source, 3, null).filter(v -> matches(v)).limit(10).toArray();
+     */
+    public IntStream BFSStream(int source, int maxDepth, EdgeFilter filter)
+    {
+        return stream(BFSIterator(source, maxDepth, filter));
+    }
+
+    /**
+     * Same as DFSIterator(int, int, EdgeFilter) as a sequential stream
+     */
+    public IntStream DFSStream(int source, int maxDepth, EdgeFilter filter)
+    {
+        return stream(DFSIterator(source, maxDepth, filter));
+    }
+
+    private static IntStream stream(PrimitiveIterator.OfInt iterator)
+    {
+        int characteristics = Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.NONNULL;
+
+        return StreamSupport.intStream(Spliterators.spliteratorUnknownSize(iterator, characteristics), false);
+    }
+
+    /**
+     * Visits the vertices reachable from the source in BFS order until the visitor returns STOP. The edges of a
+     * vertex are only scanned once the visitor returns CONTINUE for it.
+     *
+     * @param source source vertex
+     * @param maxDepth edges of the vertices at this distance from the source are not followed
+     * @param filter edges to be followed or null to follow all the edges
+     * @param visitor called for every vertex reached
+     * @return vertex for which the visitor returned STOP or -1 if the traversal was completed
+     */
+    public int BFS(int source, int maxDepth, EdgeFilter filter, Visitor visitor)
+    {
+        return visit(new LazyBFS(source, maxDepth, filter), visitor);
+    }
+
+    /**
+     * Visits the vertices reachable from the source in DFS order until the visitor returns STOP. The edges of a
+     * vertex are only scanned once the visitor returns CONTINUE for it.
+     *
+     * @param source source vertex
+     * @param maxDepth edges of the vertices at this depth of the DFS tree are not followed
+     * @param filter edges to be followed or null to follow all the edges
+     * @param visitor called for every vertex reached
+     * @return vertex for which the visitor returned STOP or -1 if the traversal was completed
+     */
+    public int DFS(int source, int maxDepth, EdgeFilter filter, Visitor visitor)
+    {
+        return visit(new LazyDFS(source, maxDepth, filter), visitor);
+    }
+
+    private static int visit(LazyTraversal traversal, Visitor visitor)
+    {
+        while (traversal.hasNext())
+        {
+            int v = traversal.nextInt();
+            Action action = visitor.visit(v, traversal.depth());
+
+            if (action == Action.STOP) return v;
+            if (action == Action.SKIP) traversal.skip();
+        }
+
+        return -1;
+    }
+
+    /* Traversal which returns a vertex before following its edges. The edges of the last returned vertex are followed
+       by the next call of hasNext() or nextInt(), unless skip() is called before it. Its arrays grow with the vertices
+       reached and the visited vertices are kept in a VertexSet, hence a traversal which is stopped early takes time
+       and memory for the part of the graph it has reached only. */
+    private abstract class LazyTraversal implements PrimitiveIterator.OfInt
+    {
+        final int maxDepth;
+        final EdgeFilter filter;
+
+        LazyTraversal(int maxDepth, EdgeFilter filter)
+        {
+            if (maxDepth < 0) throw new IllegalArgumentException("Maximum depth should not be negative");
+
+            this.maxDepth = maxDepth;
+            this.filter = filter;
+        }
+
+        // Depth of the last returned vertex
+        abstract int depth();
+
+        // Do not follow the edges of the last returned vertex
+        abstract void skip();
+
+        @Override
+        public int nextInt()
+        {
+            if (!hasNext()) throw new NoSuchElementException();
+
+            return advance();
+        }
+
+        // Returns the next vertex, which is known to exist
+        abstract int advance();
+
+        boolean follow(int u, int i, int v)
+        {
+            return filter == null || filter.test(u, v, graph.weight(u, i));
+        }
+    }
+
+    private final class LazyBFS extends LazyTraversal
+    {
+        private final VertexSet isVisited = new VertexSet(graph.vertices());
+        private int[] queue = new int[16];
+        private int head, tail;
+
+        // Depth of the last returned vertex. The vertices of the queue before levelEnd are at most at this depth and
+        // the rest are one deeper.
+        private int depth = -1;
+        private int levelEnd;
+
+        // Last returned vertex whose edges have not been followed yet or -1
+        private int pending = -1;
+
+        LazyBFS(int source, int maxDepth, EdgeFilter filter)
+        {
+            super(maxDepth, filter);
+
+            isVisited.add(source);
+            queue[tail++] = source;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (pending != -1) expand();
+
+            return head < tail;
+        }
+
+        @Override
+        int advance()
+        {
+            // Every vertex of the level has been returned and expanded, hence the next level is the rest of the queue
+            if (head == levelEnd)
+            {
+                depth++;
+                levelEnd = tail;
+            }
+
+            pending = queue[head++];
+
+            return pending;
+        }
+
+        @Override
+        int depth()
+        {
+            return depth;
+        }
+
+        @Override
+        void skip()
+        {
+            pending = -1;
+        }
+
+        private void expand()
+        {
+            int u = pending;
+            pending = -1;
+
+            if (depth >= maxDepth) return;
+
+            // Every edge of u may add a vertex, hence the queue is not checked while they are followed
+            if (queue.length - tail < graph.degree(u)) makeRoom(graph.degree(u));
+            isVisited.flattenIfDense();
+
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int v = graph.target(u, i);
+
+                if (!isVisited.contains(v) && follow(u, i, v))
+                {
+                    isVisited.add(v);
+                    queue[tail++] = v;
+                }
+            }
+        }
+
+        // Drops the vertices which have already been returned from the queue, which is doubled until it has room for
+        // the given number of vertices, hence the queue grows with the largest frontier instead of the number of
+        // vertices reached
+        private void makeRoom(int vertices)
+        {
+            int size = tail-head;
+            int length = queue.length;
+
+            while (length - size < vertices || 2*size > length) length *= 2;
+
+            int[] room = length > queue.length ? new int[length] : queue;
+
+            System.arraycopy(queue, head, room, 0, size);
+
+            queue = room;
+            levelEnd -= head;
+            tail = size;
+            head = 0;
+        }
+    }
+
+    private final class LazyDFS extends LazyTraversal
     {
-        for (Graph.Vertex v : graph.adjacencyList.get(u))
+        private final VertexSet isVisited = new VertexSet(graph.vertices());
+
+        // stack[0] to stack[top-1] is the path from the source to the last returned vertex, cursor[k] is the index of
+        // the next edge of stack[k] to be followed
+        private int[] stack = new int[16];
+        private int[] cursor = new int[16];
+        private int top;
+
+        // Vertex to be returned next, which has already been marked visited, or -1 if it has not been found yet
+        private int found;
+
+        LazyDFS(int source, int maxDepth, EdgeFilter filter)
         {
-            if (parent[v.i] == -1)
+            super(maxDepth, filter);
+
+            isVisited.add(source);
+            found = source;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            while (found == -1 && top > 0)
+            {
+                int k = top-1;
+                int u = stack[k];
+
+                // The children of the vertices at maxDepth are not followed. The cursor is only stored when a vertex
+                // is found, else u is popped.
+                if (k < maxDepth)
+                {
+                    for (int i = cursor[k];i < graph.degree(u);i++)
+                    {
+                        int v = graph.target(u, i);
+
+                        if (!isVisited.contains(v) && follow(u, i, v))
+                        {
+                            isVisited.add(v);
+                            found = v;
+                            cursor[k] = i+1;
+                            break;
+                        }
+                    }
+                }
+
+                if (found == -1) top--;
+            }
+
+            return found != -1;
+        }
+
+        @Override
+        int advance()
+        {
+            int v = found;
+            found = -1;
+
+            isVisited.flattenIfDense();
+
+            if (top == stack.length)
             {
-                parent[v.i] = u;
-                DFS(v.i, parent);
+                stack = Arrays.copyOf(stack, 2*top);
+                cursor = Arrays.copyOf(cursor, 2*top);
             }
+
+            stack[top] = v;
+            cursor[top++] = 0;
+
+            return v;
+        }
+
+        @Override
+        int depth()
+        {
+            return top-1;
+        }
+
+        @Override
+        void skip()
+        {
+            top--;
         }
     }
 }
@@ -0,0 +1,37 @@
+package Graph;
+
+/**
+ *
+ * Read-only access to the adjacency of a graph. The i-th neighbour of a vertex u, where 0 <= i < degree(u), is
+ * target(u, i) and the weight of that edge is weight(u, i).
+ *
+ * Every read-only algorithm (GraphTraversal, ShortestPath, ConnectedComponents, TopologicalSort and
+ * CriticalPointsAndBridges) can run on any implementation of this interface, irrespective of where the edges are
+ * stored:
+ *
+ *     1: Graph stores them in growable arrays on the heap
+ *     2: CsrGraph stores them in three flat arrays on the heap
+ *     3: MappedGraph reads them from a memory-mapped file
+ */
+public interface GraphView
+{
+    int vertices();
+
+    int degree(int u);
+
+    /**
+     *
+     * @param u source vertex
+     * @param i index of the neighbour, 0 <= i < degree(u)
+     * @return i-th neighbour of u
+     */
+    int target(int u, int i);
+
+    /**
+     *
+     * @param u source vertex
+     * @param i index of the neighbour, 0 <= i < degree(u)
+     * @return weight of the edge u -> target(u, i) or Graph.NO_WEIGHT if the edge has no weight
+     */
+    int weight(int u, int i);
+}
@@ -0,0 +1,171 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Indexed d-ary min-heap of the int keys 0 to capacity-1, eg, vertices, each having a long priority. Every key is
+ * located in the heap through position[], hence the priority of a key in the heap can be decreased in O(log n) time,
+ * without inserting the key again.
+ *
+ * Every node has ARITY children, which makes the heap shallower than a binary heap, ie, decreasing a priority, the
+ * most frequent operation of dijkstra and prim, takes fewer steps, whereas the children compared by pop() are
+ * adjacent in memory.
+ *
+ * Keys of equal priority are popped in ascending order of the keys, hence the order in which the keys are popped only
+ * depends on their priorities, the same as a linear scan for the minimum.
+ *
+ * It is used by MST#primsAlgo() and by ShortestPath#dijkstra(int) on graphs with negative weights. Every key popped
+ * is marked absent again, hence a heap which has been emptied can be reused without clearing it.
+ */
+final class IndexedHeap implements VertexQueue
+{
+    private static final int ARITY = 4;
+
+    // heap[0] to heap[size-1] are the keys in heap order
+    private final int[] heap;
+    private int size;
+
+    // position[key] is the index of the key in heap[] or -1 if the key is not in the heap
+    private final int[] position;
+    private final long[] priority;
+
+    IndexedHeap(int capacity)
+    {
+        heap = new int[capacity];
+        position = new int[capacity];
+        priority = new long[capacity];
+
+        Arrays.fill(position, -1);
+    }
+
+    int capacity()
+    {
+        return position.length;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    boolean contains(int key)
+    {
+        return position[key] != -1;
+    }
+
+    // Priority of a key in the heap
+    long priority(int key)
+    {
+        return priority[key];
+    }
+
+    /**
+     * Inserts the key if it is not in the heap, else lowers its priority if the new priority is lower.
+     *
+     * @param key key
+     * @param p priority
+     * @return true if the key was inserted or its priority was lowered
+     */
+    @Override
+    public boolean offer(int key, long p)
+    {
+        if (position[key] == -1)
+        {
+            priority[key] = p;
+            heap[size] = key;
+            position[key] = size;
+
+            siftUp(size++);
+            return true;
+        }
+
+        if (p >= priority[key]) return false;
+
+        priority[key] = p;
+        siftUp(position[key]);
+
+        return true;
+    }
+
+    /**
+     *
+     * @return key having the lowest priority, which is removed from the heap
+     */
+    @Override
+    public int pop()
+    {
+        int top = heap[0];
+        position[top] = -1;
+
+        if (--size > 0)
+        {
+            heap[0] = heap[size];
+            position[heap[0]] = 0;
+            siftDown(0);
+        }
+
+        return top;
+    }
+
+    // Removes every key in O(size) time
+    @Override
+    public void clear()
+    {
+        for (int i = 0;i < size;i++) position[heap[i]] = -1;
+        size = 0;
+    }
+
+    // true if a should be popped before b
+    private boolean less(int a, int b)
+    {
+        return priority[a] < priority[b] || (priority[a] == priority[b] && a < b);
+    }
+
+    private void siftUp(int i)
+    {
+        int key = heap[i];
+
+        while (i > 0)
+        {
+            int parent = (i-1) / ARITY;
+            if (!less(key, heap[parent])) break;
+
+            heap[i] = heap[parent];
+            position[heap[i]] = i;
+            i = parent;
+        }
+
+        heap[i] = key;
+        position[key] = i;
+    }
+
+    private void siftDown(int i)
+    {
+        int key = heap[i];
+
+        while (true)
+        {
+            int first = i*ARITY + 1;
+            if (first >= size) break;
+
+            int min = first;
+            for (int c = first+1;c < Math.min(first+ARITY, size);c++) if (less(heap[c], heap[min])) min = c;
+
+            if (!less(heap[min], key)) break;
+
+            heap[i] = heap[min];
+            position[heap[i]] = i;
+            i = min;
+        }
+
+        heap[i] = key;
+        position[key] = i;
+    }
+}
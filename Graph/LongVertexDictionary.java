@@ -0,0 +1,210 @@
+package Graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ *
+ * Maps long IDs, eg, user or node IDs of a dataset, to the dense vertices 0, 1, 2, ... used by Graph and back, without
+ * creating any object per ID. The first encoded ID becomes vertex 0, the next new ID becomes vertex 1 and so on, hence
+ * after encoding all the IDs, a graph of dictionary.size() vertices can hold all of them.
+ *
+ * The IDs are stored in an open addressing hash table resolving collisions using linear probing, which is doubled
+ * whenever it becomes half full. The ID of every vertex is also stored in an array, hence decoding takes O(1) time.
+ * The dictionary takes between 32 and 60 bytes per ID, instead of about 80 bytes taken by a HashMap<Long, Integer>.
+ *
+ * Example:
+ *
+ *     LongVertexDictionary dictionary = new LongVertexDictionary();
+ *
+ *     int[] src = dictionary.encode(sourceIDs);
+ *     int[] dst = dictionary.encode(destinationIDs);
+ *
+ *     DirectedGraph dg = new DirectedGraph(dictionary.size());
+ *     dg.addEdges(src, dst, null);
+ *
+ *     long[] ordering = dictionary.decode(new TopologicalSort(dg).kahns());
+ *
+ * NOTE: The dictionary is not thread-safe.
+ */
+public final class LongVertexDictionary
+{
+    // Slot i maps the ID keys[i] to the vertex values[i]. Every long is a valid ID, hence the free slots are marked in
+    // values instead of keys
+    private static final int FREE = -1;
+
+    private long[] keys;
+    private int[] values;
+
+    // ID of every vertex
+    private long[] ids;
+    private int size;
+
+    public LongVertexDictionary()
+    {
+        this(16);
+    }
+
+    /**
+     *
+     * @param expectedSize number of IDs which can be encoded without resizing the dictionary
+     */
+    public LongVertexDictionary(int expectedSize)
+    {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size should not be negative");
+
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, FREE);
+        ids = new long[Math.max(4, expectedSize)];
+    }
+
+    /**
+     *
+     * @return number of encoded IDs, which is also the number of vertices
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     *
+     * @param id ID to be encoded
+     * @return vertex of id. If id has not been encoded before, it becomes the vertex size()
+     */
+    public int encode(long id)
+    {
+        int mask = keys.length-1;
+        int i = slot(id);
+
+        while (values[i] != FREE)
+        {
+            if (keys[i] == id) return values[i];
+            i = (i+1) & mask;
+        }
+
+        if (size == ids.length) ids = Arrays.copyOf(ids, ids.length + (ids.length >> 1));
+
+        keys[i] = id;
+        values[i] = size;
+        ids[size] = id;
+
+        if (2*++size > keys.length) resize();
+
+        return size-1;
+    }
+
+    /**
+     *
+     * @param ids IDs to be encoded
+     * @return vertices[i] is the vertex of ids[i]
+     */
+    public int[] encode(long[] ids)
+    {
+        int[] vertices = new int[ids.length];
+        for (int i = 0;i < ids.length;i++) vertices[i] = encode(ids[i]);
+
+        return vertices;
+    }
+
+    /**
+     *
+     * @param id ID to be searched
+     * @return vertex of id or -1 if id has not been encoded
+     */
+    public int get(long id)
+    {
+        int mask = keys.length-1;
+
+        for (int i = slot(id);values[i] != FREE;i = (i+1) & mask)
+        {
+            if (keys[i] == id) return values[i];
+        }
+
+        return -1;
+    }
+
+    /**
+     *
+     * @param u vertex
+     * @return ID of u
+     * @throws IndexOutOfBoundsException if u is not a vertex of the dictionary
+     */
+    public long decode(int u)
+    {
+        if (u < 0 || u >= size) throw new IndexOutOfBoundsException("Vertex " + u + " out of bounds");
+
+        return ids[u];
+    }
+
+    /**
+     *
+     * @param vertices vertices, eg, a path
+     * @return ids[i] is the ID of vertices[i]
+     */
+    public long[] decode(int[] vertices)
+    {
+        long[] ids = new long[vertices.length];
+        for (int i = 0;i < vertices.length;i++) ids[i] = decode(vertices[i]);
+
+        return ids;
+    }
+
+    /**
+     *
+     * @param vertices vertices in their iteration order, eg, a path or an ordering returned by an algorithm
+     * @return IDs of the vertices in the same order
+     */
+    public long[] decode(Collection<Integer> vertices)
+    {
+        long[] ids = new long[vertices.size()];
+        int i = 0;
+
+        for (int u : vertices) ids[i++] = decode(u);
+
+        return ids;
+    }
+
+    /**
+     *
+     * @param components list of vertex lists, eg, connected components
+     * @return IDs of the vertices of every list, in the same order
+     */
+    public ArrayList<long[]> decodeAll(List<? extends Collection<Integer>> components)
+    {
+        ArrayList<long[]> ids = new ArrayList<>(components.size());
+        for (Collection<Integer> component : components) ids.add(decode(component));
+
+        return ids;
+    }
+
+    private int slot(long id)
+    {
+        // Spread the bits of the ID over the whole table (Fibonacci hashing)
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> (64 - Integer.numberOfTrailingZeros(keys.length)));
+    }
+
+    private void resize()
+    {
+        keys = new long[2*keys.length];
+        values = new int[keys.length];
+        Arrays.fill(values, FREE);
+
+        int mask = keys.length-1;
+
+        // Every ID is distinct, hence it is placed in the first free slot without comparing it with the other keys
+        for (int u = 0;u < size;u++)
+        {
+            int i = slot(ids[u]);
+            while (values[i] != FREE) i = (i+1) & mask;
+
+            keys[i] = ids[u];
+            values[i] = u;
+        }
+    }
+}
@@ -4,7 +4,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 
-import static Graph.Graph.Vertex;
 import static Graph.Graph.Edge;
 
 public class MST
@@ -33,54 +32,48 @@ public class MST
     }
 
     /**
-     * Current implementation takes O(V^2) time.
+     * Takes O((V+E) log V) time using an indexed heap of the vertices not in the MST, keyed by the lightest edge
+     * connecting them to the MST.
      *
-     * @return parent array of the minimum spanning tree
+     * @return parent array of the minimum spanning tree. Vertices not connected to the vertex 0 have the parent -1.
      */
     public int[] primsAlgo()
     {
         int[] parent = new int[ug.vertices];
-        int[] key = new int[ug.vertices];
-        boolean[] inMstSet = new boolean[ug.vertices];
-
         Arrays.fill(parent, -1);
-        Arrays.fill(key, Integer.MAX_VALUE);
 
-        key[0] = 0;
-        parent[0] = -2;
+        if (ug.vertices == 0) return parent;
+
+        Workspace workspace = Workspace.acquire(ug.vertices);
 
-        for (int count = 0; count < ug.vertices-1; count++)
+        try
         {
-            int u = getMinKey(key, inMstSet);
-            inMstSet[u] = true;
+            Workspace.Marks inMstSet = workspace.first;
+            IndexedHeap key = workspace.heap();
 
-            for (Graph.Vertex v : ug.adjacencyList.get(u))
+            parent[0] = -2;
+            key.offer(0, 0);
+
+            while (!key.isEmpty())
             {
-                if (!inMstSet[v.i] && v.w < key[v.i])
+                int u = key.pop();
+                inMstSet.set(u, 1);
+
+                for (int i = 0;i < ug.degree[u];i++)
                 {
-                    parent[v.i] = u;
-                    key[v.i] = v.w;
+                    int v = ug.targets[u][i];
+
+                    // offer() only lowers the key of v, ie, if the edge is lighter than the current key
+                    if (!inMstSet.has(v) && key.offer(v, ug.weights[u][i])) parent[v] = u;
                 }
             }
-        }
-
-        return parent;
-    }
 
-    private int getMinKey(int[] key, boolean[] inMstSet)
-    {
-        int min = Integer.MAX_VALUE, minIndex = -1;
-
-        for (int v = 0; v < ug.vertices; v++)
+            return parent;
+        }
+        finally
         {
-            if (!inMstSet[v] && key[v] < min)
-            {
-                min = key[v];
-                minIndex = v;
-            }
+            workspace.release();
         }
-
-        return minIndex;
     }
 
     /**
@@ -93,13 +86,11 @@ public class MST
     {
         // Step 1: Construct edges array consisting of all the edges of the input graph
         ArrayList<Edge> edges = new ArrayList<>();
-        UndirectedGraph tempUG = new UndirectedGraph(ug);
+        DeletionOverlay tempUG = new DeletionOverlay(ug);
 
-        for (int u = 0;u < tempUG.vertices;u++)
+        for (int u = 0;u < ug.vertices;u++)
         {
-            ArrayList<Vertex> vertices = tempUG.adjacencyList.get(u);
-
-            while (!vertices.isEmpty())
+            while (tempUG.degree[u] > 0)
             {
                 /* In case of undirected graph, an edge from u-v will be present two times. Once in,
                    neighbouring vertices of u and other in neighbouring vertices of v. Since, it should
@@ -109,13 +100,13 @@ public class MST
                    _v:  v->u
                 */
 
-                Vertex v = vertices.remove(vertices.size()-1);
-                Vertex _v = tempUG.getEdge(v.i, u);
+                int last = tempUG.removeLast(u);
+                int v = ug.targets[u][last];
 
-                tempUG.adjacencyList.get(v.i).remove(_v);
+                tempUG.removeNeighbour(v, u);
 
                 // Add the edge to the list
-                edges.add(new Edge(u, v.i, v.w));
+                edges.add(new Edge(u, v, ug.weights[u][last]));
             }
         }
 
@@ -158,7 +149,8 @@ public class MST
     // Returns the root parent of i
     private int find(int[] parent, int i)
     {
-        if (parent[i] == -1) return i;
-        else return find(parent, parent[i]);
+        while (parent[i] != -1) i = parent[i];
+
+        return i;
     }
 }
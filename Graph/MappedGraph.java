@@ -0,0 +1,139 @@
+package Graph;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ *
+ * Read-only graph whose edges are read directly from a memory-mapped graph file. Opening the graph does not read the
+ * edges, the operating system pages them in from the page cache as the algorithms access them. Hence, opening is almost
+ * instant and the heap used by the graph does not depend on the number of vertices or edges.
+ *
+ * Since a single MappedByteBuffer can map at most 2 GB, the file is mapped as a series of 1 GB segments. All the
+ * values in the file are aligned to their size, hence no value is split across two segments. Offsets are 64 bit, so
+ * a graph can have more than 2^31 edges. Only the degree of a single vertex must fit in an int.
+ *
+ * Example:
+ *
+ *     MappedGraph.write(graph, path);
+ *
+ *     MappedGraph mappedGraph = MappedGraph.open(path);
+ *     int[] distance = new GraphTraversal(mappedGraph).BFS(0);
+ *
+ * @see GraphFile
+ */
+public final class MappedGraph implements GraphView
+{
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_SHIFT) - 1;
+
+    private final MappedByteBuffer[] segments;
+
+    private final int vertices;
+    private final long edges;
+    private final long targetsPosition;
+    private final long weightsPosition;
+
+    private MappedGraph(MappedByteBuffer[] segments, int vertices, long edges)
+    {
+        this.segments = segments;
+        this.vertices = vertices;
+        this.edges = edges;
+        this.targetsPosition = GraphFile.targetsPosition(vertices);
+        this.weightsPosition = GraphFile.weightsPosition(vertices, edges);
+    }
+
+    /**
+     *
+     * @param path graph file written by write(GraphView, Path)
+     * @return graph backed by the file
+     * @throws IOException if the file cannot be mapped or is not a valid graph file
+     */
+    public static MappedGraph open(Path path) throws IOException
+    {
+        // The mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size < GraphFile.HEADER_BYTES) throw new IOException("Not a graph file");
+
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+            for (int i = 0;i < segments.length;i++)
+            {
+                long position = (long) i << SEGMENT_SHIFT;
+
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(SEGMENT_MASK+1, size-position));
+                segments[i].order(ByteOrder.LITTLE_ENDIAN);
+            }
+
+            GraphFile.checkHeader(segments[0]);
+
+            int vertices = segments[0].getInt(12);
+            long edges = segments[0].getLong(16);
+            if (vertices < 0 || edges < 0 || size < GraphFile.size(vertices, edges))
+                throw new IOException("Graph file is truncated");
+
+            return new MappedGraph(segments, vertices, edges);
+        }
+    }
+
+    /**
+     *
+     * @param graph graph to be written
+     * @param path file to be written. It is replaced if it already exists.
+     */
+    public static void write(GraphView graph, Path path) throws IOException
+    {
+        GraphFile.write(graph, path);
+    }
+
+    private int getInt(long position)
+    {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getInt((int) (position & SEGMENT_MASK));
+    }
+
+    private long getLong(long position)
+    {
+        return segments[(int) (position >>> SEGMENT_SHIFT)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    // Index of the first edge of u
+    private long offset(int u)
+    {
+        return getLong(GraphFile.offsetsPosition() + 8L*u);
+    }
+
+    @Override
+    public int vertices()
+    {
+        return vertices;
+    }
+
+    public long edges()
+    {
+        return edges;
+    }
+
+    @Override
+    public int degree(int u)
+    {
+        return (int) (offset(u+1) - offset(u));
+    }
+
+    @Override
+    public int target(int u, int i)
+    {
+        return getInt(targetsPosition + 4L*(offset(u)+i));
+    }
+
+    @Override
+    public int weight(int u, int i)
+    {
+        return getInt(weightsPosition + 4L*(offset(u)+i));
+    }
+}
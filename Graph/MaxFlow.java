@@ -33,20 +33,26 @@ public class MaxFlow
     {
         residualGraph = new Graph(graph.vertices);
 
+        // Residual edges are looked up on every augmentation, hence index them for O(1) lookups
+        residualGraph.enableEdgeIndex();
+
         // Construct residual graph
         for (int u = 0;u < graph.vertices;u++)
         {
-            for (Graph.Vertex v : graph.adjacencyList.get(u))
+            for (int i = 0;i < graph.degree[u];i++)
             {
+                int v = graph.targets[u][i];
+                int forward = residualGraph.indexOf(u, v);
+
                 // If forward edge already exists, update its weight
-                if (residualGraph.hasEdge(u, v.i))
-                    residualGraph.getEdge(u, v.i).w += v.w;
+                if (forward != -1)
+                    residualGraph.weights[u][forward] += graph.weights[u][i];
                 // In case it does not exist, create one
-                else residualGraph.addEdge(u, v.i, v.w);
+                else residualGraph.addEdge(u, v, graph.weights[u][i]);
 
                 // If backward edge does not already exist, add it
-                if (!residualGraph.hasEdge(v.i, u))
-                    residualGraph.addEdge(v.i, u, 0);
+                if (!residualGraph.hasEdge(v, u))
+                    residualGraph.addEdge(v, u, 0);
             }
         }
     }
@@ -59,68 +65,86 @@ public class MaxFlow
     {
         initResidualGraph();
 
-        int[] parent;
-        int maxFlow = 0;
-        while ((parent = findAugmentedPath()) != null)
+        // The parents of every augmenting path are kept in the workspace, instead of an array per augmentation
+        Workspace workspace = Workspace.acquire(graph.vertices);
+
+        try
         {
-            int flow = Integer.MAX_VALUE;
-            int currentVertex = sink;
+            Workspace.Marks parent = workspace.first;
+            int maxFlow = 0;
 
-            while (currentVertex != source)
+            while (findAugmentedPath(workspace))
             {
-                flow = Math.min(residualGraph.getEdge(parent[currentVertex], currentVertex).w, flow);
-                currentVertex = parent[currentVertex];
-            }
+                int flow = Integer.MAX_VALUE;
+                int currentVertex = sink;
 
-            currentVertex = sink;
-            while (currentVertex != source)
-            {
-                residualGraph.getEdge(parent[currentVertex], currentVertex).w =
-                        Math.max(residualGraph.getEdge(parent[currentVertex], currentVertex).w -=flow, 0);
+                while (currentVertex != source)
+                {
+                    int u = parent.get(currentVertex);
 
-                residualGraph.getEdge(currentVertex, parent[currentVertex]).w += flow;
+                    flow = Math.min(residualGraph.weights[u][residualGraph.indexOf(u, currentVertex)], flow);
+                    currentVertex = u;
+                }
+
+                currentVertex = sink;
+                while (currentVertex != source)
+                {
+                    int u = parent.get(currentVertex);
+                    int forward = residualGraph.indexOf(u, currentVertex);
+                    int backward = residualGraph.indexOf(currentVertex, u);
+
+                    residualGraph.weights[u][forward] = Math.max(residualGraph.weights[u][forward]-flow, 0);
+                    residualGraph.weights[currentVertex][backward] += flow;
+
+                    currentVertex = u;
+                }
 
-                currentVertex = parent[currentVertex];
+                maxFlow += flow;
             }
 
-            maxFlow += flow;
+            return maxFlow;
+        }
+        finally
+        {
+            workspace.release();
         }
-
-        return maxFlow;
     }
 
     /**
      *
      *  Uses BFS to find path from source to sink
      *
-     * @return parent[] if path is found else null
+     * @param workspace workspace whose first marks are set to the parent of every vertex reached
+     * @return true if path is found else false
      */
-    private int[] findAugmentedPath()
+    private boolean findAugmentedPath(Workspace workspace)
     {
-        LinkedList<Integer> queue = new LinkedList<>();
-        int[] parent = new int[residualGraph.vertices];
-        Arrays.fill(parent, -1);
+        Workspace.Marks parent = workspace.first;
+        parent.clear(residualGraph.vertices);
+
+        int[] queue = workspace.queue();
+        int head = 0, tail = 0;
 
-        parent[source] = -2;
-        queue.add(source);
+        parent.set(source, -2);
+        queue[tail++] = source;
 
-        while (!queue.isEmpty() && parent[sink] == -1)
+        while (head < tail && !parent.has(sink))
         {
-            int u = queue.remove();
+            int u = queue[head++];
 
-            for (Graph.Vertex v : residualGraph.adjacencyList.get(u))
+            for (int i = 0;i < residualGraph.degree[u];i++)
             {
-                if (parent[v.i] == -1 && v.w > 0)
+                int v = residualGraph.targets[u][i];
+
+                if (!parent.has(v) && residualGraph.weights[u][i] > 0)
                 {
-                    parent[v.i] = u;
-                    queue.add(v.i);
+                    parent.set(v, u);
+                    queue[tail++] = v;
                 }
             }
         }
 
-        // If queue is empty, then sink cannot be located
-        if (queue.isEmpty()) return null;
-        else return parent;
+        return parent.has(sink);
     }
 
     /**
@@ -133,11 +157,22 @@ public class MaxFlow
 
         int maxFlow = 0;
 
-        int[] level;
-        while ((level = BFS()) != null)
+        DepthFirstSearch search = new DepthFirstSearch(residualGraph);
+
+        // The levels of every phase are kept in the workspace, instead of an array per phase
+        Workspace workspace = Workspace.acquire(graph.vertices);
+
+        try
+        {
+            while (BFS(workspace))
+            {
+                int flow;
+                while ((flow = DFS(search, workspace.first)) != -1) maxFlow += flow;
+            }
+        }
+        finally
         {
-            int flow;
-            while ((flow = DFS(source, level, Integer.MAX_VALUE)) != -1) maxFlow += flow;
+            workspace.release();
         }
 
         return maxFlow;
@@ -145,78 +180,83 @@ public class MaxFlow
 
     /**
      *
-     * Builds up a level array depending upon current state of residual graph
+     * Builds up the levels depending upon current state of residual graph
      *
-     * @return null if no path exists from source to sink
-     *         else an array denoting level of each vertex
+     * @param workspace workspace whose first marks are set to the level of every vertex reached
+     * @return false if no path exists from source to sink else true
      */
-    private int[] BFS()
+    private boolean BFS(Workspace workspace)
     {
-        // Besides, denoting the level for each vertex, level array is also used to check if a vertex
+        // Besides, denoting the level for each vertex, the marks are also used to check if a vertex
         // has been visited before or not
-        int[] level = new int[graph.vertices];
-        Arrays.fill(level, -1);
+        Workspace.Marks level = workspace.first;
+        level.clear(graph.vertices);
 
-        LinkedList<Integer> queue = new LinkedList<>();
+        int[] queue = workspace.queue();
+        int head = 0, tail = 0;
 
-        queue.add(source);
-        level[source] = 0;
+        queue[tail++] = source;
+        level.set(source, 0);
 
-        while (!queue.isEmpty() && level[sink] == -1)
+        while (head < tail && !level.has(sink))
         {
-            int u = queue.removeFirst();
+            int u = queue[head++];
 
-            for (Graph.Vertex v : residualGraph.adjacencyList.get(u))
+            for (int i = 0;i < residualGraph.degree[u];i++)
             {
-                if (level[v.i] == -1 && v.w > 0)
+                int v = residualGraph.targets[u][i];
+
+                if (!level.has(v) && residualGraph.weights[u][i] > 0)
                 {
-                    queue.add(v.i);
-                    level[v.i] = level[u]+1;
+                    queue[tail++] = v;
+                    level.set(v, level.get(u)+1);
                 }
             }
         }
 
-        if (level[sink] == -1) return null;
-        else return level;
+        return level.has(sink);
     }
 
 
     /**
      * Sends flow from source to sink using residual graph and level array
      *
-     * @param u parent vertex
-     * @param level level array
-     * @param flow current flow
+     * @param search DFS on the residual graph
+     * @param level level of every vertex reached by BFS(Workspace)
      * @return positive integer denoting flow from source to sink if possible else -1
      */
-    private int DFS(int u, int[] level, int flow)
+    private int DFS(DepthFirstSearch search, Workspace.Marks level)
     {
-        if (u == sink) return flow;
-
-        for (Graph.Vertex v : residualGraph.adjacencyList.get(u))
+        // Follow the edges to the next level having residual capacity, until one of them reaches the sink
+        boolean found = !search.run(source, (u, i, v) ->
         {
-            if (level[v.i] == level[u]+1 && v.w > 0)
-            {
-                /* Obtain the bottleneck flow of the path u -> v -> .... -> sink. Initially u is source.
-                   If no such path exists, -1 is returned.
+            if (level.get(v, -1) != level.get(u)+1 || residualGraph.weights[u][i] <= 0) return DepthFirstSearch.SKIP;
 
-                   In the below DFS call, @param flow is passed Math.min(flow, v.w). Since, the flow that
-                   can be pushed from u -> v is the minimum of present flow and residual capacity of edge
-                   u -> v which is v.w.
-                 */
-                int bottleNeck = DFS(v.i, level, Math.min(flow, v.w));
+            return v == sink ? DepthFirstSearch.STOP : DepthFirstSearch.DESCEND;
+        });
 
-                if (bottleNeck > 0)
-                {
-                    residualGraph.getEdge(v.i, u).w += bottleNeck;
-                    v.w -= bottleNeck;
+        if (!found) return -1;
 
-                    return bottleNeck;
-                }
-            }
+        /* The stack holds the path source -> .... -> u and the last edge explored by u leads to the sink.
+           The flow that can be pushed along the path is the minimum residual capacity of its edges.
+         */
+        int bottleNeck = Integer.MAX_VALUE;
+        for (int k = 0;k < search.depth();k++)
+        {
+            bottleNeck = Math.min(bottleNeck, residualGraph.weights[search.vertexAt(k)][search.edgeAt(k)]);
+        }
+
+        for (int k = 0;k < search.depth();k++)
+        {
+            int u = search.vertexAt(k);
+            int i = search.edgeAt(k);
+            int v = residualGraph.targets[u][i];
+
+            residualGraph.weights[v][residualGraph.indexOf(v, u)] += bottleNeck;
+            residualGraph.weights[u][i] -= bottleNeck;
         }
 
-        return -1;
+        return bottleNeck;
     }
 
     /**
@@ -238,17 +278,19 @@ public class MaxFlow
 
         h[source] = graph.vertices;
 
-        for (Graph.Vertex v : graph.adjacencyList.get(source))
+        for (int i = 0;i < graph.degree[source];i++)
         {
-            residualGraph.getEdge(source, v.i).w = 0;
-            residualGraph.getEdge(v.i, source).w = v.w;
+            int v = graph.targets[source][i];
+
+            residualGraph.weights[source][residualGraph.indexOf(source, v)] = 0;
+            residualGraph.weights[v][residualGraph.indexOf(v, source)] = graph.weights[source][i];
 
-            e[v.i] = v.w;
+            e[v] = graph.weights[source][i];
 
-            if (v.i != sink)
+            if (v != sink)
             {
-                queue.add(v.i);
-                inQueue[v.i] = true;
+                queue.add(v);
+                inQueue[v] = true;
             }
         }
 
@@ -274,9 +316,9 @@ public class MaxFlow
     {
         int minHeight = Integer.MAX_VALUE;
 
-        for (Graph.Vertex v : residualGraph.adjacencyList.get(u))
+        for (int i = 0;i < residualGraph.degree[u];i++)
         {
-            if (v.w > 0) minHeight = Math.min(h[v.i], minHeight);
+            if (residualGraph.weights[u][i] > 0) minHeight = Math.min(h[residualGraph.targets[u][i]], minHeight);
         }
 
         h[u] = minHeight+1;
@@ -291,26 +333,28 @@ public class MaxFlow
     private void push(int u, int[] e, int[] h, LinkedList<Integer> queue,
                       boolean[] inQueue)
     {
-        for (Graph.Vertex v : residualGraph.adjacencyList.get(u))
+        for (int i = 0;i < residualGraph.degree[u];i++)
         {
             // after pushing flow if there is no excess flow, then break
             if (e[u] == 0) break;
 
+            int v = residualGraph.targets[u][i];
+
             // push more flow to the adjacent v if possible
-            if (v.w > 0 && h[v.i] < h[u])
+            if (residualGraph.weights[u][i] > 0 && h[v] < h[u])
             {
-                int f = Math.min(e[u], v.w);
+                int f = Math.min(e[u], residualGraph.weights[u][i]);
 
-                v.w -= f;
-                residualGraph.getEdge(v.i,u).w += f;
+                residualGraph.weights[u][i] -= f;
+                residualGraph.weights[v][residualGraph.indexOf(v, u)] += f;
 
                 e[u] -= f;
-                e[v.i] += f;
+                e[v] += f;
 
-                if (!inQueue[v.i] && v.i != source && v.i != sink)
+                if (!inQueue[v] && v != source && v != sink)
                 {
-                    queue.add(v.i);
-                    inQueue[v.i] = true;
+                    queue.add(v);
+                    inQueue[v] = true;
                 }
             }
         }
@@ -343,14 +387,16 @@ public class MaxFlow
             {
                 // graph will be used for printing the edges since residual graph also consists
                 // of residual edges
-                for (Graph.Vertex v : graph.adjacencyList.get(u))
+                for (int i = 0;i < graph.degree[u];i++)
                 {
-                    if (parent[v.i] == -1)
+                    int v = graph.targets[u][i];
+
+                    if (parent[v] == -1)
                     {
                         ArrayList<Integer> edge = new ArrayList<>(2);
 
                         edge.add(u);
-                        edge.add(v.i);
+                        edge.add(v);
 
                         edges.add(edge);
                     }
@@ -375,20 +421,14 @@ public class MaxFlow
         Arrays.fill(parent, -1);
 
         parent[u] = -2;
-        DFS(u, parent);
+        new DepthFirstSearch(residualGraph).run(u, (x, i, v) ->
+        {
+            if (parent[v] != -1 || residualGraph.weights[x][i] <= 0) return DepthFirstSearch.SKIP;
 
-        return parent;
-    }
+            parent[v] = x;
+            return DepthFirstSearch.DESCEND;
+        });
 
-    private void DFS(int u, int[] parent)
-    {
-        for (Graph.Vertex v : residualGraph.adjacencyList.get(u))
-        {
-            if (parent[v.i] == -1 && v.w > 0)
-            {
-                parent[v.i] = u;
-                DFS(v.i, parent);
-            }
-        }
+        return parent;
     }
 }
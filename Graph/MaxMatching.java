@@ -67,7 +67,7 @@ public class MaxMatching
         for (int i = 1;i <= L;i++)
         {
             // A vertex i in the flow graph will be vertex i-1 in the original graph
-            for (Graph.Vertex v : biGraph.adjacencyList.get(i-1)) flowGraph.addEdge(i, v.i+1, 1);
+            for (int j = 0;j < biGraph.degree[i-1];j++) flowGraph.addEdge(i, biGraph.targets[i-1][j]+1, 1);
         }
 
         // Find the final residual graph
@@ -79,14 +79,16 @@ public class MaxMatching
         // Using residual graph find all the edges in maximum matching
         for (int u = 1;u <= L;u++)
         {
-            for (Graph.Vertex v : finalResidualGraph.adjacencyList.get(u))
+            for (int i = 0;i < finalResidualGraph.degree[u];i++)
             {
-                if (v.w == 0 && v.i >= L+1 && v.i <= biGraph.vertices)
+                int v = finalResidualGraph.targets[u][i];
+
+                if (finalResidualGraph.weights[u][i] == 0 && v >= L+1 && v <= biGraph.vertices)
                 {
                     ArrayList<Integer> e = new ArrayList<>(2);
 
                     e.add(u-1);
-                    e.add(v.i-1);
+                    e.add(v-1);
 
                     edges.add(e);
 
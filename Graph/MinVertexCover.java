@@ -37,7 +37,7 @@ public class MinVertexCover
         {
             if (!hasMatching[i])
             {
-                for (Graph.Vertex v : biGraph.adjacencyList.get(i)) isCovered[v.i] = true;
+                for (int j = 0;j < biGraph.degree[i];j++) isCovered[biGraph.targets[i][j]] = true;
             }
         }
 
@@ -47,7 +47,7 @@ public class MinVertexCover
         {
             if (!hasMatching[i+biGraph.L])
             {
-                for (Graph.Vertex v : biGraph.adjacencyList.get(i+biGraph.L)) isCovered[v.i] = true;
+                for (int j = 0;j < biGraph.degree[i+biGraph.L];j++) isCovered[biGraph.targets[i+biGraph.L][j]] = true;
             }
         }
 
@@ -0,0 +1,225 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Priority queue of the vertices 0 to capacity-1 for monotone uses, ie, every key is offered with a non-negative
+ * priority which is not lower than the priority of the last key popped, which is the case for dijkstra as long as no
+ * edge has a negative weight.
+ *
+ * The keys are kept in buckets of doubly linked lists threaded through next[] and previous[], hence a key is moved to
+ * another bucket in O(1) time when its priority is lowered. The bucket of a priority is chosen by the subclass:
+ *
+ *     Buckets: Dial's bucket queue, one bucket per priority modulo C+1, where C is the largest weight. Every
+ *              operation takes O(1) time, apart from pop() which skips the empty buckets, ie, dijkstra takes
+ *              O(V + E + D) time, where D is the largest distance.
+ *
+ *     Radix:   radix heap, one bucket per highest bit in which a priority differs from the last priority popped.
+ *              A key only moves to lower buckets, ie, dijkstra takes O(E + V log C) time for any C.
+ *
+ * Keys of equal priority are popped in an unspecified order.
+ */
+abstract class MonotoneQueue implements VertexQueue
+{
+    private static final int NONE = -1;
+
+    // head[b] is the first key of the bucket b or NONE
+    final int[] head;
+
+    private final int[] next;
+    private final int[] previous;
+
+    // bucket[key] is the bucket of the key or NONE if the key is not in the queue
+    private final int[] bucket;
+    final long[] priority;
+
+    int size;
+
+    // Priority of the last key popped, 0 until a key is popped after clear()
+    long last;
+
+    MonotoneQueue(int capacity, int buckets)
+    {
+        head = new int[buckets];
+        next = new int[capacity];
+        previous = new int[capacity];
+        bucket = new int[capacity];
+        priority = new long[capacity];
+
+        Arrays.fill(head, NONE);
+        Arrays.fill(bucket, NONE);
+    }
+
+    int capacity()
+    {
+        return bucket.length;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    @Override
+    public boolean offer(int key, long p)
+    {
+        if (bucket[key] == NONE) size++;
+        else
+        {
+            if (p >= priority[key]) return false;
+
+            unlink(key);
+        }
+
+        priority[key] = p;
+        link(key, bucketOf(p));
+
+        return true;
+    }
+
+    @Override
+    public void clear()
+    {
+        last = 0;
+
+        // The buckets of an emptied queue are already empty
+        if (size == 0) return;
+
+        for (int b = 0;b < head.length;b++)
+        {
+            for (int key = head[b];key != NONE;key = next[key]) bucket[key] = NONE;
+            head[b] = NONE;
+        }
+
+        size = 0;
+    }
+
+    // Bucket of a priority which is not lower than the last priority popped
+    abstract int bucketOf(long p);
+
+    // Removes the first key of a non empty bucket
+    final int removeFirst(int b)
+    {
+        int key = head[b];
+
+        unlink(key);
+        size--;
+
+        return key;
+    }
+
+    final int nextKey(int key)
+    {
+        return next[key];
+    }
+
+    final void link(int key, int b)
+    {
+        bucket[key] = b;
+        previous[key] = NONE;
+        next[key] = head[b];
+
+        if (head[b] != NONE) previous[head[b]] = key;
+        head[b] = key;
+    }
+
+    private void unlink(int key)
+    {
+        int b = bucket[key];
+
+        if (previous[key] == NONE) head[b] = next[key];
+        else next[previous[key]] = next[key];
+
+        if (next[key] != NONE) previous[next[key]] = previous[key];
+
+        bucket[key] = NONE;
+    }
+
+    /**
+     *
+     * Dial's bucket queue for priorities which differ by at most maxWeight from the last priority popped, ie, dijkstra
+     * on a graph whose weights are at most maxWeight.
+     */
+    static final class Buckets extends MonotoneQueue
+    {
+        Buckets(int capacity, int maxWeight)
+        {
+            super(capacity, maxWeight+1);
+        }
+
+        int maxWeight()
+        {
+            return head.length-1;
+        }
+
+        @Override
+        int bucketOf(long p)
+        {
+            return (int) (p % head.length);
+        }
+
+        @Override
+        public int pop()
+        {
+            // The buckets from the one of the last priority popped hold the priorities last, last+1, ... in turn
+            int b = bucketOf(last);
+
+            while (head[b] == NONE)
+            {
+                last++;
+                if (++b == head.length) b = 0;
+            }
+
+            return removeFirst(b);
+        }
+    }
+
+    /**
+     *
+     * Radix heap for any non-negative priorities. The bucket 0 holds the keys whose priority is the last priority
+     * popped and the bucket b > 0 the keys whose priority first differs from it in the bit b-1, counting from the
+     * lowest bit, ie, the keys of a bucket are lower than the keys of the buckets above it.
+     */
+    static final class Radix extends MonotoneQueue
+    {
+        Radix(int capacity)
+        {
+            super(capacity, Long.SIZE+1);
+        }
+
+        @Override
+        int bucketOf(long p)
+        {
+            return Long.SIZE - Long.numberOfLeadingZeros(p ^ last);
+        }
+
+        @Override
+        public int pop()
+        {
+            if (head[0] == NONE)
+            {
+                int b = 1;
+                while (head[b] == NONE) b++;
+
+                // The lowest priority of the first non empty bucket becomes the last priority, after which its keys
+                // are spread over the lower buckets
+                last = Long.MAX_VALUE;
+                for (int key = head[b];key != NONE;key = nextKey(key)) last = Math.min(last, priority[key]);
+
+                int key = head[b];
+                head[b] = NONE;
+
+                while (key != NONE)
+                {
+                    int following = nextKey(key);
+                    link(key, bucketOf(priority[key]));
+                    key = following;
+                }
+            }
+
+            return removeFirst(0);
+        }
+    }
+}
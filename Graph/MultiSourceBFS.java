@@ -0,0 +1,238 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * BFS from many sources at once, which computes the same distances as calling GraphTraversal#BFS(int) for every
+ * source, while scanning the edges of the graph only once per level for a whole batch of sources.
+ *
+ * The sources are split into batches of up to 64 * WORDS sources. Every vertex has a bitmask of the sources of the
+ * batch, in WORDS longs, for each of
+ *
+ *     seen:     sources which have reached the vertex
+ *     frontier: sources which reached the vertex at the current level
+ *     next:     sources which reach the vertex at the next level
+ *
+ * An edge u -> v is scanned once per level for all the sources, by or-ing the frontier of u into the next of v. The
+ * sources of next which have already reached v are then removed, and what is left reached v at the next level. Hence,
+ * the sources whose searches overlap, eg, sources in the same part of the graph, share the scans of the common edges.
+ *
+ * Example:
+ *
+ *     MultiSourceBFS bfs = new MultiSourceBFS(graph);
+ *
+ *     int[][] distance = bfs.distances(sources);      // distance[k] is the distance[] of sources[k]
+ *     long[] sum = bfs.distanceSums(sources);          // eg, closeness centrality of every source
+ *
+ * Other aggregates can be computed without holding a distance[] per source using run(int[], Visitor).
+ */
+public final class MultiSourceBFS
+{
+    // Number of longs per vertex in every bitmask, hence up to 256 sources are searched at once
+    private static final int WORDS = 4;
+
+    public interface Visitor
+    {
+        /**
+         * Called once for every vertex and level at which at least one source of the batch reaches the vertex.
+         *
+         * @param v vertex
+         * @param level distance of v from the sources
+         * @param first index in the sources of the first source of the word
+         * @param sources bit k is set if the source first+k reaches v at the level
+         */
+        void visit(int v, int level, int first, long sources);
+    }
+
+    private final GraphView graph;
+
+    public MultiSourceBFS(Graph graph)
+    {
+        this((GraphView) graph);
+    }
+
+    public MultiSourceBFS(GraphView graph)
+    {
+        this.graph = graph;
+    }
+
+    /**
+     *
+     * @param sources source vertices
+     * @return distance[k][v] is the distance of v from sources[k] or -1 if v is not reachable from it
+     */
+    public int[][] distances(int[] sources)
+    {
+        int[][] distance = new int[sources.length][graph.vertices()];
+        for (int[] row : distance) Arrays.fill(row, -1);
+
+        run(sources, (v, level, first, mask) ->
+        {
+            for (long bits = mask;bits != 0;bits &= bits-1)
+                distance[first + Long.numberOfTrailingZeros(bits)][v] = level;
+        });
+
+        return distance;
+    }
+
+    /**
+     *
+     * @param sources source vertices
+     * @return sum[k] is the sum of the distances of the vertices reachable from sources[k]
+     */
+    public long[] distanceSums(int[] sources)
+    {
+        long[] sum = new long[sources.length];
+
+        run(sources, (v, level, first, mask) ->
+        {
+            for (long bits = mask;bits != 0;bits &= bits-1) sum[first + Long.numberOfTrailingZeros(bits)] += level;
+        });
+
+        return sum;
+    }
+
+    /**
+     *
+     * @param sources source vertices
+     * @return count[k] is the number of vertices reachable from sources[k], including itself
+     */
+    public int[] reachableCounts(int[] sources)
+    {
+        int[] count = new int[sources.length];
+
+        run(sources, (v, level, first, mask) ->
+        {
+            for (long bits = mask;bits != 0;bits &= bits-1) count[first + Long.numberOfTrailingZeros(bits)]++;
+        });
+
+        return count;
+    }
+
+    /**
+     * Searches the sources in batches and reports every vertex reached by every source to the visitor. The vertices
+     * of a batch are reported level by level, in ascending order of the vertices within a level.
+     *
+     * @param sources source vertices
+     * @param visitor called for every vertex reached
+     */
+    public void run(int[] sources, Visitor visitor)
+    {
+        int vertices = graph.vertices();
+        if (sources.length == 0) return;
+
+        for (int source : sources)
+        {
+            if (source < 0 || source >= vertices)
+                throw new IndexOutOfBoundsException("Vertex " + source + " out of bounds");
+        }
+
+        // Fewer words if the batches are small, and no more than an array can hold
+        int words = Math.min(WORDS, (sources.length + 63) >>> 6);
+        words = (int) Math.max(1, Math.min(words, (Integer.MAX_VALUE - 8L) / Math.max(1, vertices)));
+
+        long[] seen = new long[vertices*words];
+        long[] frontier = new long[vertices*words];
+        long[] next = new long[vertices*words];
+
+        for (int first = 0;first < sources.length;first += 64*words)
+        {
+            if (first > 0)
+            {
+                Arrays.fill(seen, 0);
+                Arrays.fill(frontier, 0);
+            }
+
+            int batch = Math.min(64*words, sources.length - first);
+
+            for (int k = 0;k < batch;k++)
+            {
+                int u = sources[first+k];
+                frontier[u*words + (k >>> 6)] |= 1L << (k & 63);
+            }
+
+            for (int u = 0;u < vertices;u++)
+            {
+                for (int w = 0;w < words;w++)
+                {
+                    long bits = frontier[u*words + w];
+                    if (bits == 0) continue;
+
+                    seen[u*words + w] = bits;
+                    visitor.visit(u, 0, first + 64*w, bits);
+                }
+            }
+
+            for (int level = 1;;level++)
+            {
+                Arrays.fill(next, 0);
+
+                if (!expand(words, frontier, next)) break;
+                if (!visit(words, seen, next, level, first, visitor)) break;
+
+                long[] swap = frontier;
+                frontier = next;
+                next = swap;
+            }
+        }
+    }
+
+    // Ors the frontier of every vertex into the next of its neighbours. Returns false if the frontier is empty.
+    private boolean expand(int words, long[] frontier, long[] next)
+    {
+        boolean active = false;
+
+        for (int u = 0;u < graph.vertices();u++)
+        {
+            int from = u*words;
+
+            long any = 0;
+            for (int w = 0;w < words;w++) any |= frontier[from+w];
+            if (any == 0) continue;
+
+            active = true;
+
+            if (words == 1)
+            {
+                for (int i = 0;i < graph.degree(u);i++) next[graph.target(u, i)] |= any;
+            }
+            else
+            {
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    int to = graph.target(u, i)*words;
+                    for (int w = 0;w < words;w++) next[to+w] |= frontier[from+w];
+                }
+            }
+        }
+
+        return active;
+    }
+
+    // Keeps the sources of next which have not reached the vertex before, which become the next frontier, and reports
+    // them. Returns false if no source reached any vertex.
+    private boolean visit(int words, long[] seen, long[] next, int level, int first, Visitor visitor)
+    {
+        boolean reached = false;
+
+        for (int v = 0;v < graph.vertices();v++)
+        {
+            for (int w = 0;w < words;w++)
+            {
+                int j = v*words + w;
+
+                long bits = next[j] & ~seen[j];
+                next[j] = bits;
+                if (bits == 0) continue;
+
+                seen[j] |= bits;
+                reached = true;
+
+                visitor.visit(v, level, first + 64*w, bits);
+            }
+        }
+
+        return reached;
+    }
+}
@@ -0,0 +1,341 @@
+package Graph;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ *
+ * Result of splitting the vertices of a graph into shards using Graph#partition(int, Strategy). Every vertex is owned
+ * by exactly one shard and every edge is stored by the shard owning its source vertex. An edge whose endpoints are owned
+ * by different shards is cut, and the shard storing it keeps the other endpoint as a ghost vertex.
+ *
+ * Every shard can be built on its own using getShard(int) and written to a separate file, which can be loaded by a
+ * separate worker process using Shard.load(Path).
+ *
+ * Example:
+ *
+ *     Partitioning partitioning = graph.partition(4, Partitioning.Strategy.LABEL_PROPAGATION);
+ *
+ *     partitioning.save(directory);       // shard-0.graph to shard-3.graph
+ *
+ *     // in worker process i
+ *     Shard shard = Shard.load(directory.resolve("shard-" + i + ".graph"));
+ *
+ * The shards are balanced by load, where the load of a vertex is 1 + its degree, hence every shard holds about the
+ * same number of vertices and edges.
+ */
+public final class Partitioning
+{
+    public enum Strategy
+    {
+        // Vertices are scattered by a hash of their label. Balanced for any labelling, but cuts most of the edges
+        HASH,
+        // Consecutive ranges of vertices, which cuts few edges if nearby labels are connected, eg, after reorder(RCM)
+        RANGE,
+        // RANGE refined by moving every vertex to the shard owning most of its neighbours while keeping the balance
+        LABEL_PROPAGATION
+    }
+
+    // A shard may exceed the average load by this fraction while LABEL_PROPAGATION moves vertices into it
+    private static final double IMBALANCE = 0.05;
+
+    // LABEL_PROPAGATION stops after this many passes or once a pass moves less than 0.1% of the vertices
+    private static final int MAX_PASSES = 10;
+
+    private final Graph graph;
+    private final int shards;
+    private final int[] owner;
+
+    // Vertices owned by shard s are vertices[first[s]] to vertices[first[s+1]-1], in ascending order. rank[u] is the
+    // position of u among them, hence its label in the shard.
+    private final int[] first;
+    private final int[] vertices;
+    private final int[] rank;
+
+    private Partitioning(Graph graph, int shards, int[] owner)
+    {
+        this.graph = graph;
+        this.shards = shards;
+        this.owner = owner;
+
+        first = new int[shards+1];
+        for (int u = 0;u < graph.vertices;u++) first[owner[u]+1]++;
+        for (int s = 0;s < shards;s++) first[s+1] += first[s];
+
+        vertices = new int[graph.vertices];
+        rank = new int[graph.vertices];
+
+        int[] next = Arrays.copyOf(first, shards);
+        for (int u = 0;u < graph.vertices;u++)
+        {
+            rank[u] = next[owner[u]] - first[owner[u]];
+            vertices[next[owner[u]]++] = u;
+        }
+    }
+
+    public int shards()
+    {
+        return shards;
+    }
+
+    /**
+     *
+     * @param u vertex of the graph
+     * @return shard owning u
+     */
+    public int owner(int u)
+    {
+        return owner[u];
+    }
+
+    /**
+     *
+     * @return array where the i-th element is the shard owning the vertex i
+     */
+    public int[] getOwners()
+    {
+        return owner.clone();
+    }
+
+    /**
+     *
+     * @param s shard
+     * @return number of vertices owned by s
+     */
+    public int size(int s)
+    {
+        return first[s+1] - first[s];
+    }
+
+    /**
+     *
+     * @return number of edges whose endpoints are owned by different shards. An edge of an undirected or bipartite
+     * graph is counted once.
+     */
+    public long edgeCut()
+    {
+        long cut = 0;
+
+        for (int u = 0;u < graph.vertices;u++)
+        {
+            for (int i = 0;i < graph.degree[u];i++) if (owner[graph.targets[u][i]] != owner[u]) cut++;
+        }
+
+        return graph.mirrored() ? cut/2 : cut;
+    }
+
+    /**
+     * Builds the shard in O(V_s + E_s log G_s) time, where V_s and E_s are the vertices and the edges stored by the
+     * shard and G_s is the number of its ghost vertices.
+     *
+     * @param s shard
+     * @return vertices owned by s, their edges and the ghost vertices they reach
+     */
+    public Shard getShard(int s)
+    {
+        int owned = size(s);
+
+        // Ghosts are the distinct endpoints of the cut edges, in ascending order
+        int cut = 0;
+        for (int j = first[s];j < first[s+1];j++)
+        {
+            int u = vertices[j];
+            for (int i = 0;i < graph.degree[u];i++) if (owner[graph.targets[u][i]] != s) cut++;
+        }
+
+        int[] ghosts = new int[cut];
+        cut = 0;
+        for (int j = first[s];j < first[s+1];j++)
+        {
+            int u = vertices[j];
+            for (int i = 0;i < graph.degree[u];i++)
+            {
+                if (owner[graph.targets[u][i]] != s) ghosts[cut++] = graph.targets[u][i];
+            }
+        }
+
+        Arrays.sort(ghosts);
+        int distinct = 0;
+        for (int i = 0;i < ghosts.length;i++) if (i == 0 || ghosts[i] != ghosts[i-1]) ghosts[distinct++] = ghosts[i];
+
+        // Owned vertices are labelled 0 to owned-1 and the ghosts after them
+        int[] global = new int[owned + distinct];
+        System.arraycopy(vertices, first[s], global, 0, owned);
+        System.arraycopy(ghosts, 0, global, owned, distinct);
+
+        int[] ghostOwner = new int[distinct];
+        for (int i = 0;i < distinct;i++) ghostOwner[i] = owner[ghosts[i]];
+
+        Graph local = new Graph(owned + distinct);
+        int[] boundary = new int[owned];
+        int boundaries = 0;
+
+        for (int j = 0;j < owned;j++)
+        {
+            int u = global[j];
+            int degree = graph.degree[u];
+            if (degree == 0) continue;
+
+            local.targets[j] = new int[degree];
+            local.weights[j] = Arrays.copyOf(graph.weights[u], degree);
+            local.degree[j] = degree;
+
+            boolean isBoundary = false;
+            for (int i = 0;i < degree;i++)
+            {
+                int v = graph.targets[u][i];
+
+                if (owner[v] == s) local.targets[j][i] = rank[v];
+                else
+                {
+                    local.targets[j][i] = owned + Arrays.binarySearch(ghosts, 0, distinct, v);
+                    isBoundary = true;
+                }
+            }
+
+            if (isBoundary) boundary[boundaries++] = j;
+        }
+
+        local.bulkLoaded();
+
+        return new Shard(s, shards, graph.vertices, graph.mirrored(), owned, global, ghostOwner,
+                Arrays.copyOf(boundary, boundaries), local);
+    }
+
+    /**
+     * Builds and writes every shard s to the file shard-s.graph of the directory. The shards are built and written in
+     * parallel, one shard at a time per thread, hence only a few shards are held in memory at a time.
+     *
+     * @param directory existing directory
+     */
+    public void save(Path directory) throws IOException
+    {
+        try
+        {
+            IntStream.range(0, shards).parallel().forEach(s ->
+            {
+                try
+                {
+                    getShard(s).save(directory.resolve("shard-" + s + ".graph"));
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    static Partitioning of(Graph graph, int shards, Strategy strategy)
+    {
+        if (shards < 1) throw new IllegalArgumentException("Number of shards should be positive");
+
+        int[] owner;
+        switch (strategy)
+        {
+            case HASH: owner = hash(graph, shards); break;
+            case RANGE: owner = range(graph, shards); break;
+            // The shard of a vertex depends on all of its neighbours, hence every edge of a directed graph is
+            // considered in both the directions
+            default: owner = labelPropagation(graph.mirrored() ? graph : CsrGraph.undirected(graph),
+                    range(graph, shards), shards);
+        }
+
+        return new Partitioning(graph, shards, owner);
+    }
+
+    private static int[] hash(Graph graph, int shards)
+    {
+        int[] owner = new int[graph.vertices];
+
+        // Fibonacci hashing, so that consecutive vertices are scattered over all the shards
+        for (int u = 0;u < graph.vertices;u++) owner[u] = (int) ((((u * 0x9E3779B97F4A7C15L) >>> 32) * shards) >>> 32);
+
+        return owner;
+    }
+
+    // Splits the vertices into consecutive ranges having almost the same load
+    private static int[] range(Graph graph, int shards)
+    {
+        long total = 0;
+        for (int u = 0;u < graph.vertices;u++) total += 1 + graph.degree[u];
+
+        int[] owner = new int[graph.vertices];
+
+        long load = 0;
+        for (int u = 0;u < graph.vertices;u++)
+        {
+            owner[u] = (int) (load * shards / total);
+            load += 1 + graph.degree[u];
+        }
+
+        return owner;
+    }
+
+    /**
+     *
+     * @param graph symmetric view of the graph
+     * @param owner initial shard of every vertex, refined in place
+     * @param shards number of shards
+     * @return owner
+     */
+    private static int[] labelPropagation(GraphView graph, int[] owner, int shards)
+    {
+        int vertices = graph.vertices();
+
+        long[] load = new long[shards];
+        long total = 0;
+        for (int u = 0;u < vertices;u++)
+        {
+            load[owner[u]] += 1 + graph.degree(u);
+            total += 1 + graph.degree(u);
+        }
+
+        long capacity = (long) Math.ceil((1 + IMBALANCE) * total / shards);
+
+        // count[s] is the number of neighbours of the current vertex owned by s, touched[] lists the shards counted
+        int[] count = new int[shards];
+        int[] touched = new int[shards];
+
+        for (int pass = 0;pass < MAX_PASSES;pass++)
+        {
+            int moved = 0;
+
+            for (int u = 0;u < vertices;u++)
+            {
+                int n = 0;
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    int s = owner[graph.target(u, i)];
+                    if (count[s]++ == 0) touched[n++] = s;
+                }
+
+                // Move u only if another shard owns strictly more of its neighbours and has room for it
+                int best = owner[u];
+                for (int j = 0;j < n;j++) if (count[touched[j]] > count[best]) best = touched[j];
+
+                int weight = 1 + graph.degree(u);
+                if (best != owner[u] && load[best] + weight <= capacity)
+                {
+                    load[owner[u]] -= weight;
+                    load[best] += weight;
+                    owner[u] = best;
+                    moved++;
+                }
+
+                for (int j = 0;j < n;j++) count[touched[j]] = 0;
+            }
+
+            if (moved <= vertices/1000) break;
+        }
+
+        return owner;
+    }
+}
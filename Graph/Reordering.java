@@ -0,0 +1,507 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Result of relabelling the vertices of a graph using Graph#reorder(Strategy). Vertices which are visited one after
+ * another by the algorithms get nearby labels, hence their adjacency arrays are allocated next to each other and
+ * traversals read the memory more sequentially.
+ *
+ * Vertex u of the original graph is vertex getPermutation()[u] of the reordered graph. Results computed on the
+ * reordered graph can be mapped back to the original labels using toOriginal(int[]) and verticesToOriginal(int[]).
+ *
+ * Example:
+ *
+ *     Reordering reordering = graph.reorder(Reordering.Strategy.RCM);
+ *
+ *     int source = reordering.newLabel(0);
+ *     int[] distance = reordering.toOriginal(new GraphTraversal(reordering.getGraph()).BFS(source));
+ *
+ * The reordered graph is of the same class as the original graph and its neighbours of every vertex are in the same
+ * order as in the original graph. In case of a BipartiteGraph, vertices of set L are only reordered among themselves
+ * and so are the vertices of set R, hence the labelling rules still hold.
+ */
+public final class Reordering
+{
+    public enum Strategy
+    {
+        // Reverse Cuthill-McKee, reduces the bandwidth of the adjacency matrix
+        RCM,
+        // Vertices in the descending order of their degree, hubs are placed together at the start
+        DEGREE,
+        // Order in which BFS visits the vertices, starting from the vertex 0
+        BFS,
+        // Greedy ordering of Gorder, vertices sharing neighbours are placed within a small window of each other
+        GORDER
+    }
+
+    // Number of previously placed vertices considered by GORDER
+    private static final int WINDOW = 5;
+
+    private final Graph graph;
+    private final int[] newLabel;
+    private final int[] oldLabel;
+
+    private Reordering(Graph graph, int[] newLabel, int[] oldLabel)
+    {
+        this.graph = graph;
+        this.newLabel = newLabel;
+        this.oldLabel = oldLabel;
+    }
+
+    /**
+     *
+     * @return reordered graph
+     */
+    public Graph getGraph()
+    {
+        return graph;
+    }
+
+    /**
+     *
+     * @return permutation, where the i-th element is the new label of the vertex i of the original graph
+     */
+    public int[] getPermutation()
+    {
+        return newLabel.clone();
+    }
+
+    public int newLabel(int u)
+    {
+        return newLabel[u];
+    }
+
+    public int oldLabel(int u)
+    {
+        return oldLabel[u];
+    }
+
+    /**
+     *
+     * @param values array indexed by the vertices of the reordered graph, eg, distance[] returned by BFS
+     * @return same values indexed by the vertices of the original graph
+     */
+    public int[] toOriginal(int[] values)
+    {
+        int[] original = new int[values.length];
+        for (int u = 0;u < values.length;u++) original[oldLabel[u]] = values[u];
+
+        return original;
+    }
+
+    /**
+     *
+     * @param vertices array indexed by the vertices of the reordered graph whose non-negative values are also vertices
+     *                 of the reordered graph, eg, parent[] returned by DFS
+     * @return same array with both the indices and the non-negative values mapped to the vertices of the original graph
+     */
+    public int[] verticesToOriginal(int[] vertices)
+    {
+        int[] original = new int[vertices.length];
+        for (int u = 0;u < vertices.length;u++)
+            original[oldLabel[u]] = vertices[u] < 0 ? vertices[u] : oldLabel[vertices[u]];
+
+        return original;
+    }
+
+    static Reordering of(Graph graph, Strategy strategy)
+    {
+        int[] order;
+        switch (strategy)
+        {
+            // RCM is defined for symmetric graphs, hence every edge of a directed graph is considered in both the
+            // directions
+            case RCM: order = rcm(graph.mirrored() ? graph : CsrGraph.undirected(graph)); break;
+            case DEGREE: order = degree(graph); break;
+            case BFS: order = bfs(graph); break;
+            default: order = gorder(graph, graph.mirrored() ? graph : CsrGraph.transpose(graph));
+        }
+
+        if (graph instanceof BipartiteGraph) order = keepSets(order, ((BipartiteGraph) graph).L);
+
+        int[] newLabel = new int[graph.vertices];
+        for (int i = 0;i < graph.vertices;i++) newLabel[order[i]] = i;
+
+        return new Reordering(relabel(graph, order, newLabel), newLabel, order);
+    }
+
+    // Moves the vertices of set L before the vertices of set R without changing their relative order
+    private static int[] keepSets(int[] order, int L)
+    {
+        int[] kept = new int[order.length];
+        int left = 0, right = L;
+
+        for (int u : order)
+        {
+            if (u < L) kept[left++] = u;
+            else kept[right++] = u;
+        }
+
+        return kept;
+    }
+
+    // Builds the graph in which vertex i is the vertex order[i] of the original graph
+    private static Graph relabel(Graph graph, int[] order, int[] newLabel)
+    {
+        Graph relabelled;
+        if (graph instanceof DirectedGraph) relabelled = new DirectedGraph(graph.vertices);
+        else if (graph instanceof UndirectedGraph) relabelled = new UndirectedGraph(graph.vertices);
+        else if (graph instanceof BipartiteGraph)
+            relabelled = new BipartiteGraph(((BipartiteGraph) graph).L, ((BipartiteGraph) graph).R);
+        else relabelled = new Graph(graph.vertices);
+
+        // Arrays are allocated in the new order, hence the arrays of consecutive vertices are also consecutive in memory
+        for (int u = 0;u < graph.vertices;u++)
+        {
+            int old = order[u];
+            int degree = graph.degree[old];
+            if (degree == 0) continue;
+
+            relabelled.targets[u] = new int[degree];
+            relabelled.weights[u] = Arrays.copyOf(graph.weights[old], degree);
+            relabelled.degree[u] = degree;
+
+            for (int i = 0;i < degree;i++) relabelled.targets[u][i] = newLabel[graph.targets[old][i]];
+        }
+
+        relabelled.bulkLoaded();
+        if (graph.edgeIndex != null) relabelled.enableEdgeIndex();
+
+        return relabelled;
+    }
+
+    /**
+     *
+     * Cuthill-McKee visits every component in BFS order, starting from a pseudo-peripheral vertex and visiting the
+     * neighbours of a vertex in the ascending order of their degree. The order is then reversed.
+     *
+     * @param graph symmetric graph
+     * @return vertices in the new order
+     */
+    private static int[] rcm(GraphView graph)
+    {
+        int V = graph.vertices();
+
+        int[] order = new int[V];
+        boolean[] visited = new boolean[V];
+        int placed = 0;
+
+        // Scratch space used for finding pseudo-peripheral vertices
+        int[] queue = new int[V];
+        int[] depth = new int[V];
+        boolean[] seen = new boolean[V];
+
+        long[] keys = new long[V];
+
+        // Every component is started from its vertex of minimum degree
+        int[] byDegree = new int[V];
+        for (int u = 0;u < V;u++) byDegree[u] = u;
+        sortByDegree(graph, byDegree, 0, V, keys);
+
+        for (int s : byDegree)
+        {
+            if (visited[s]) continue;
+
+            int start = peripheral(graph, s, queue, depth, seen);
+
+            visited[start] = true;
+            order[placed++] = start;
+
+            // order[] itself is used as the queue of BFS
+            for (int head = placed-1;head < placed;head++)
+            {
+                int u = order[head];
+                int from = placed;
+
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    int v = graph.target(u, i);
+
+                    if (!visited[v])
+                    {
+                        visited[v] = true;
+                        order[placed++] = v;
+                    }
+                }
+
+                sortByDegree(graph, order, from, placed, keys);
+            }
+        }
+
+        for (int i = 0, j = V-1;i < j;i++, j--)
+        {
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+
+        return order;
+    }
+
+    /**
+     *
+     * Finds a pseudo-peripheral vertex of the component of s using the heuristic of George and Liu. A vertex of
+     * minimum degree in the last level of BFS is picked as the next start as long as the number of levels increases.
+     *
+     * @return pseudo-peripheral vertex
+     */
+    private static int peripheral(GraphView graph, int s, int[] queue, int[] depth, boolean[] seen)
+    {
+        int tail = levels(graph, s, queue, depth, seen);
+        int eccentricity = depth[queue[tail-1]];
+
+        while (true)
+        {
+            // The last level is at the end of the queue
+            int next = queue[tail-1];
+            for (int i = tail-1;i >= 0 && depth[queue[i]] == eccentricity;i--)
+            {
+                if (graph.degree(queue[i]) < graph.degree(next)) next = queue[i];
+            }
+
+            tail = levels(graph, next, queue, depth, seen);
+            if (depth[queue[tail-1]] <= eccentricity) return s;
+
+            s = next;
+            eccentricity = depth[queue[tail-1]];
+        }
+    }
+
+    /* BFS which stores the visited vertices in queue[] and the level of every visited vertex in depth[]. seen[] is
+       cleared before returning, hence it can be reused without clearing the whole array. */
+    private static int levels(GraphView graph, int s, int[] queue, int[] depth, boolean[] seen)
+    {
+        int head = 0, tail = 0;
+
+        seen[s] = true;
+        depth[s] = 0;
+        queue[tail++] = s;
+
+        while (head < tail)
+        {
+            int u = queue[head++];
+
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int v = graph.target(u, i);
+
+                if (!seen[v])
+                {
+                    seen[v] = true;
+                    depth[v] = depth[u]+1;
+                    queue[tail++] = v;
+                }
+            }
+        }
+
+        for (int i = 0;i < tail;i++) seen[queue[i]] = false;
+
+        return tail;
+    }
+
+    // Sorts vertices[from] to vertices[to-1] in the ascending order of their degree, ties by label
+    private static void sortByDegree(GraphView graph, int[] vertices, int from, int to, long[] keys)
+    {
+        for (int i = from;i < to;i++) keys[i] = (long) graph.degree(vertices[i]) << 32 | vertices[i];
+        Arrays.sort(keys, from, to);
+        for (int i = from;i < to;i++) vertices[i] = (int) keys[i];
+    }
+
+    private static int[] degree(GraphView graph)
+    {
+        int V = graph.vertices();
+
+        // Vertices of the same degree are kept in the ascending order of their labels
+        long[] keys = new long[V];
+        for (int u = 0;u < V;u++) keys[u] = (long) (Integer.MAX_VALUE - graph.degree(u)) << 32 | u;
+        Arrays.sort(keys);
+
+        int[] order = new int[V];
+        for (int i = 0;i < V;i++) order[i] = (int) keys[i];
+
+        return order;
+    }
+
+    private static int[] bfs(GraphView graph)
+    {
+        int V = graph.vertices();
+
+        int[] order = new int[V];
+        boolean[] visited = new boolean[V];
+        int placed = 0;
+
+        // Vertices not reachable from the vertex 0 are visited from the smallest unvisited vertex
+        for (int s = 0;s < V;s++)
+        {
+            if (visited[s]) continue;
+
+            visited[s] = true;
+            order[placed++] = s;
+
+            for (int head = placed-1;head < placed;head++)
+            {
+                int u = order[head];
+
+                for (int i = 0;i < graph.degree(u);i++)
+                {
+                    int v = graph.target(u, i);
+
+                    if (!visited[v])
+                    {
+                        visited[v] = true;
+                        order[placed++] = v;
+                    }
+                }
+            }
+        }
+
+        return order;
+    }
+
+    /**
+     *
+     * Greedy algorithm of Gorder. The next vertex is the one with the maximum score with respect to the last WINDOW
+     * placed vertices, where the score of v with respect to u is the number of edges between u and v plus the number of
+     * in-neighbours shared by u and v. Scores are updated incrementally whenever a vertex enters or leaves the window.
+     *
+     * In-neighbours with a degree larger than sqrt(V) are not considered while counting the shared in-neighbours, since
+     * a hub would add to the score of almost every vertex and costs O(degree) per update.
+     *
+     * @param out graph
+     * @param in transpose of the graph
+     * @return vertices in the new order
+     */
+    private static int[] gorder(GraphView out, GraphView in)
+    {
+        int V = out.vertices();
+        int[] order = new int[V];
+        if (V == 0) return order;
+
+        int hub = (int) Math.sqrt(V) + 1;
+        ScoreQueue queue = new ScoreQueue(V);
+
+        // Start with the vertex having the maximum in-degree
+        int first = 0;
+        for (int u = 1;u < V;u++) if (in.degree(u) > in.degree(first)) first = u;
+
+        queue.remove(first);
+        order[0] = first;
+        updateScores(out, in, queue, first, 1, hub);
+
+        for (int i = 1;i < V;i++)
+        {
+            if (i > WINDOW) updateScores(out, in, queue, order[i-1-WINDOW], -1, hub);
+
+            order[i] = queue.pollMax();
+            updateScores(out, in, queue, order[i], 1, hub);
+        }
+
+        return order;
+    }
+
+    // Adds delta to the score of every vertex related to u
+    private static void updateScores(GraphView out, GraphView in, ScoreQueue queue, int u, int delta, int hub)
+    {
+        for (int i = 0;i < out.degree(u);i++) queue.add(out.target(u, i), delta);
+
+        for (int i = 0;i < in.degree(u);i++)
+        {
+            int x = in.target(u, i);
+            queue.add(x, delta);
+
+            if (out.degree(x) > hub) continue;
+
+            for (int j = 0;j < out.degree(x);j++)
+            {
+                int y = out.target(x, j);
+                if (y != u) queue.add(y, delta);
+            }
+        }
+    }
+
+    /**
+     *
+     * Priority queue of the vertices which have not been placed yet, whose scores only change by one at a time. Every
+     * score has a doubly linked list of the vertices having that score, hence every operation takes O(1) amortized
+     * time.
+     */
+    private static final class ScoreQueue
+    {
+        private final int[] score;
+        private final int[] next;
+        private final int[] previous;
+        private final boolean[] removed;
+
+        private int[] head; // head[s] is the first vertex with score s or -1
+        private int max;
+
+        ScoreQueue(int vertices)
+        {
+            score = new int[vertices];
+            next = new int[vertices];
+            previous = new int[vertices];
+            removed = new boolean[vertices];
+
+            head = new int[16];
+            Arrays.fill(head, -1);
+
+            // Vertices with the same score are polled in the ascending order of their labels at first
+            for (int u = vertices-1;u >= 0;u--) link(u);
+        }
+
+        void add(int u, int delta)
+        {
+            if (removed[u]) return;
+
+            unlink(u);
+            score[u] += delta;
+
+            if (score[u] == head.length)
+            {
+                int length = head.length;
+
+                head = Arrays.copyOf(head, 2*length);
+                Arrays.fill(head, length, 2*length, -1);
+            }
+
+            link(u);
+            max = Math.max(max, score[u]);
+        }
+
+        void remove(int u)
+        {
+            unlink(u);
+            removed[u] = true;
+        }
+
+        int pollMax()
+        {
+            while (head[max] == -1) max--;
+
+            int u = head[max];
+            remove(u);
+
+            return u;
+        }
+
+        private void link(int u)
+        {
+            int s = score[u];
+
+            previous[u] = -1;
+            next[u] = head[s];
+            if (head[s] != -1) previous[head[s]] = u;
+            head[s] = u;
+        }
+
+        private void unlink(int u)
+        {
+            if (previous[u] != -1) next[previous[u]] = next[u];
+            else head[score[u]] = next[u];
+
+            if (next[u] != -1) previous[next[u]] = previous[u];
+        }
+    }
+}
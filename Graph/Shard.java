@@ -0,0 +1,261 @@
+package Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ *
+ * Part of a graph split by Partitioning, which can be saved and loaded on its own by a separate worker process. It
+ * contains the vertices owned by the shard, all their outgoing edges and the ghost vertices, ie, the vertices owned by
+ * other shards which are reached by these edges.
+ *
+ * The vertices are relabelled so that the shard is a graph on its own:
+ *
+ *     0 to owned-1: owned vertices, in the ascending order of their labels in the original graph
+ *     owned to owned+ghosts-1: ghost vertices, also in the ascending order of their labels
+ *
+ * getGraph() returns a Graph using these labels. Ghost vertices have no edges of their own, since their edges are
+ * stored by the shards owning them. The tables of the shard map every vertex back to its original label and every
+ * ghost to the shard owning it, and list the boundary vertices, ie, the owned vertices having a ghost neighbour.
+ *
+ * File format:
+ *
+ *     The local graph in the format of GraphFile, hence Graph.load(Path) and MappedGraph.open(Path) can also read it,
+ *     followed by the tables at the end of the graph file. All the values are stored in little endian byte order.
+ *
+ *     Header (64 bytes):
+ *         0: int  magic number
+ *         4: int  version
+ *         8: int  id of the shard
+ *        12: int  number of shards
+ *        16: int  number of vertices of the original graph
+ *        20: int  1 if the original graph stores every edge in both the directions, else 0
+ *        24: int  number of owned vertices
+ *        28: int  number of ghost vertices
+ *        32: int  number of boundary vertices
+ *        36: unused
+ *
+ *     Body:
+ *        global:     owned+ghosts ints, original label of every vertex
+ *        ghostOwner: ghosts ints, shard owning every ghost vertex
+ *        boundary:   boundary ints, boundary vertices in ascending order
+ */
+public final class Shard
+{
+    static final int MAGIC = 0x44524853; // bytes "SHRD" in little endian order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+
+    private final int id;
+    private final int shards;
+    private final int globalVertices;
+    private final boolean mirrored;
+    private final int owned;
+
+    // Original label of every vertex of the shard
+    private final int[] global;
+    // ghostOwner[i] is the shard owning the vertex owned+i
+    private final int[] ghostOwner;
+    private final int[] boundary;
+
+    private final Graph graph;
+
+    Shard(int id, int shards, int globalVertices, boolean mirrored, int owned, int[] global, int[] ghostOwner,
+          int[] boundary, Graph graph)
+    {
+        this.id = id;
+        this.shards = shards;
+        this.globalVertices = globalVertices;
+        this.mirrored = mirrored;
+        this.owned = owned;
+        this.global = global;
+        this.ghostOwner = ghostOwner;
+        this.boundary = boundary;
+        this.graph = graph;
+    }
+
+    public int id()
+    {
+        return id;
+    }
+
+    public int shards()
+    {
+        return shards;
+    }
+
+    /**
+     *
+     * @return number of vertices of the original graph
+     */
+    public int globalVertices()
+    {
+        return globalVertices;
+    }
+
+    /**
+     *
+     * @return true if the original graph is undirected or bipartite, ie, stores every edge in both the directions
+     */
+    public boolean isMirrored()
+    {
+        return mirrored;
+    }
+
+    public int ownedVertices()
+    {
+        return owned;
+    }
+
+    public int ghostVertices()
+    {
+        return ghostOwner.length;
+    }
+
+    /**
+     *
+     * @return graph of the owned and the ghost vertices, labelled as described in the class
+     */
+    public Graph getGraph()
+    {
+        return graph;
+    }
+
+    /**
+     *
+     * @param u vertex of the shard
+     * @return label of u in the original graph
+     */
+    public int global(int u)
+    {
+        return global[u];
+    }
+
+    /**
+     *
+     * @param v vertex of the original graph
+     * @return vertex of the shard labelled v in the original graph or -1 if v is neither owned nor a ghost
+     */
+    public int local(int v)
+    {
+        // Both the owned and the ghost vertices are sorted by their original labels
+        int i = Arrays.binarySearch(global, 0, owned, v);
+        if (i >= 0) return i;
+
+        i = Arrays.binarySearch(global, owned, global.length, v);
+        return i >= 0 ? i : -1;
+    }
+
+    public boolean isGhost(int u)
+    {
+        return u >= owned;
+    }
+
+    /**
+     *
+     * @param u vertex of the shard
+     * @return shard owning u
+     */
+    public int owner(int u)
+    {
+        return u < owned ? id : ghostOwner[u-owned];
+    }
+
+    /**
+     *
+     * @return owned vertices having at least one ghost neighbour, in ascending order
+     */
+    public int[] getBoundary()
+    {
+        return boundary.clone();
+    }
+
+    /**
+     *
+     * @param path file to be written. It is replaced if it already exists.
+     */
+    public void save(Path path) throws IOException
+    {
+        GraphFile.write(graph, path);
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+        {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+
+            buffer.putInt(MAGIC);
+            buffer.putInt(VERSION);
+            buffer.putInt(id);
+            buffer.putInt(shards);
+            buffer.putInt(globalVertices);
+            buffer.putInt(mirrored ? 1 : 0);
+            buffer.putInt(owned);
+            buffer.putInt(ghostOwner.length);
+            buffer.putInt(boundary.length);
+            while (buffer.position() < HEADER_BYTES) buffer.put((byte) 0);
+
+            for (int[] table : new int[][] {global, ghostOwner, boundary})
+            {
+                for (int value : table)
+                {
+                    if (buffer.remaining() < 4) GraphFile.flush(buffer, channel);
+                    buffer.putInt(value);
+                }
+            }
+
+            GraphFile.flush(buffer, channel);
+        }
+    }
+
+    /**
+     *
+     * @param path file written by save(Path)
+     * @return shard stored in the file
+     * @throws IOException if the file cannot be read or is not a valid shard file
+     */
+    public static Shard load(Path path) throws IOException
+    {
+        Graph graph = GraphFile.read(path);
+
+        long edges = 0;
+        for (int u = 0;u < graph.vertices;u++) edges += graph.degree[u];
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long position = GraphFile.size(graph.vertices, edges);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            GraphFile.readFully(channel, header, position);
+
+            if (header.getInt(0) != MAGIC) throw new IOException("Not a shard file");
+            if (header.getInt(4) != VERSION)
+                throw new IOException("Unsupported shard file version " + header.getInt(4) + ", expected " + VERSION);
+
+            int owned = header.getInt(24);
+            int ghosts = header.getInt(28);
+            int boundaries = header.getInt(32);
+
+            if (owned < 0 || ghosts < 0 || owned + ghosts != graph.vertices || boundaries < 0 || boundaries > owned)
+                throw new IOException("Shard file is corrupt");
+
+            ByteBuffer body = ByteBuffer.allocate(4*(graph.vertices + ghosts + boundaries));
+            body.order(ByteOrder.LITTLE_ENDIAN);
+            GraphFile.readFully(channel, body, position + HEADER_BYTES);
+
+            IntBuffer ints = body.flip().asIntBuffer();
+            int[] global = new int[graph.vertices];
+            int[] ghostOwner = new int[ghosts];
+            int[] boundary = new int[boundaries];
+
+            ints.get(global).get(ghostOwner).get(boundary);
+
+            return new Shard(header.getInt(8), header.getInt(12), header.getInt(16), header.getInt(20) == 1, owned,
+                    global, ghostOwner, boundary, graph);
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package Graph;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 
 /**
@@ -16,69 +15,174 @@ import java.util.Arrays;
  */
 public class ShortestPath
 {
-    private final Graph graph;
+    // Largest weight for which dijkstra uses a bucket queue, whose pop() skips up to that many empty buckets
+    private static final int BUCKETS_MAX_WEIGHT = 1 << 12;
+
+    private static final int UNKNOWN = -2;
+
+    private final GraphView graph;
+
+    // Largest weight of the graph or -1 if some weight is negative, UNKNOWN until it is needed by dijkstra, and the
+    // version of the graph it was found in
+    private int maxWeight = UNKNOWN;
+    private long maxWeightVersion;
 
     public ShortestPath(Graph graph)
+    {
+        this((GraphView) graph);
+    }
+
+    public ShortestPath(GraphView graph)
     {
         this.graph = graph;
     }
 
     /**
      *
-     * NOTE: The current implementation of dijkstra takes O(V^2) time.
+     * The vertices whose distance is known but not final are kept in a queue chosen by the weights of the graph, which
+     * are scanned by the first call and scanned again once the graph has changed:
+     *
+     *     1: weights from 0 to 2^12:  Dial's bucket queue, which takes O(V + E + D) time, D being the largest distance
+     *     2: larger weights:          radix heap, which takes O(E + V log C) time, C being the largest weight
+     *     3: negative weights:        indexed heap, which takes O((V+E) log V) time
+     *
+     * The search itself runs in the workspace of the thread, but the returned array of V distances is allocated by
+     * every call. Use dijkstra(int, int) for queries which should not allocate.
      *
      * @param source source vertex
      * @return 1D distance array containing distance of all the vertices from source vertex
      */
     public int[] dijkstra(int source)
     {
-        boolean[] isVisited = new boolean[graph.vertices];
-        int[] distance = new int[graph.vertices];
-
-        Arrays.fill(distance, Integer.MAX_VALUE);
-        distance[source] = 0;
+        Workspace workspace = Workspace.acquire(graph.vertices());
 
-        for (int i = 0;i < graph.vertices;i++)
+        try
         {
-            int minDistanceVertex = findMinDistanceVertex(distance, isVisited);
-            isVisited[minDistanceVertex] = true;
+            dijkstra(source, -1, workspace);
 
-            for (Graph.Vertex v : graph.adjacencyList.get(minDistanceVertex))
-            {
-                int destination = v.i;
-                int destinationDistance = v.w;
+            int[] distance = new int[graph.vertices()];
+            for (int v = 0;v < graph.vertices();v++) distance[v] = workspace.second.get(v, Integer.MAX_VALUE);
 
-                if (!isVisited[destination] && distance[minDistanceVertex]+destinationDistance < distance[destination])
-                    distance[destination] = distance[minDistanceVertex]+destinationDistance;
-            }
+            return distance;
         }
+        finally
+        {
+            workspace.release();
+        }
+    }
 
-        return distance;
+    /**
+     * Same as dijkstra(int), but stops once the distance of the target is final, hence only the vertices closer to the
+     * source than the target are settled. The distances are kept in the workspace of the thread, hence a query
+     * neither allocates nor clears arrays of V elements.
+     *
+     * @param source source vertex
+     * @param target target vertex
+     * @return distance of the target from the source or Integer.MAX_VALUE if it is not reachable
+     */
+    public int dijkstra(int source, int target)
+    {
+        Workspace workspace = Workspace.acquire(graph.vertices());
+
+        try
+        {
+            dijkstra(source, target, workspace);
+
+            return workspace.second.get(target, Integer.MAX_VALUE);
+        }
+        finally
+        {
+            workspace.release();
+        }
     }
 
     /**
      *
-     * @param distance distance array
-     * @param isVisited isVisited array
-     * @return next vertex with minimum distance value from the set of vertices not yet included in the shortest path
-     *         tree
+     * @param source source vertex
+     * @param target vertex after which the search stops or -1 to settle all the reachable vertices
+     * @param workspace workspace whose first marks are set for the settled vertices and second marks to the distance
+     *                  of every vertex reached
      */
-    private int findMinDistanceVertex(int[] distance, boolean[] isVisited)
+    private void dijkstra(int source, int target, Workspace workspace)
     {
-        int minIndex = -1, minDistance = Integer.MAX_VALUE;
+        Workspace.Marks isVisited = workspace.first;
+        Workspace.Marks distance = workspace.second;
+        VertexQueue queue = queue(workspace);
 
-        for (int v = 0;v < graph.vertices;v++)
+        distance.set(source, 0);
+        queue.offer(source, 0);
+
+        while (!queue.isEmpty())
         {
-            if (!isVisited[v] && distance[v] <= minDistance)
+            int minDistanceVertex = queue.pop();
+            isVisited.set(minDistanceVertex, 1);
+
+            if (minDistanceVertex == target) break;
+
+            for (int j = 0;j < graph.degree(minDistanceVertex);j++)
             {
-                minDistance = distance[v];
-                minIndex = v;
+                int destination = graph.target(minDistanceVertex, j);
+                int destinationDistance = distance.get(minDistanceVertex) + graph.weight(minDistanceVertex, j);
+
+                if (!isVisited.has(destination) &&
+                        destinationDistance < distance.get(destination, Integer.MAX_VALUE))
+                {
+                    distance.set(destination, destinationDistance);
+                    queue.offer(destination, destinationDistance);
+                }
             }
         }
 
-        return minIndex;
+        // Vertices left in the queue once the target is settled
+        queue.clear();
     }
 
+    // Empty queue of the workspace for the weights of the graph
+    private VertexQueue queue(Workspace workspace)
+    {
+        /* A weight above the one the buckets were made for or a negative weight added since the scan would make the
+           distances wrong, hence the weights are scanned again unless the graph is known not to have changed. Graph
+           tells through its version whether it has changed, whereas views of unknown kinds are scanned every time. */
+        long version = graph instanceof Graph ? ((Graph) graph).version() : 0;
+
+        if (maxWeight == UNKNOWN || version != maxWeightVersion || !changesTracked(graph))
+        {
+            maxWeight = maxWeight();
+            maxWeightVersion = version;
+        }
+
+        // The bucket queue and the radix heap require that no distance is lower than the last distance popped
+        if (maxWeight < 0) return workspace.heap();
+        if (maxWeight <= BUCKETS_MAX_WEIGHT) return workspace.buckets(maxWeight);
+
+        return workspace.radixHeap();
+    }
+
+    // true if every change of the edges of the view changes its version, ie, Graph, or if they can not change at all
+    private static boolean changesTracked(GraphView graph)
+    {
+        return graph instanceof Graph || graph instanceof CsrGraph || graph instanceof MappedGraph ||
+                graph instanceof DeltaGraph.Snapshot;
+    }
+
+    // Largest weight of the graph or -1 if some weight is negative
+    private int maxWeight()
+    {
+        int max = 0;
+
+        for (int u = 0;u < graph.vertices();u++)
+        {
+            for (int i = 0;i < graph.degree(u);i++)
+            {
+                int w = graph.weight(u, i);
+                if (w < 0) return -1;
+
+                max = Math.max(max, w);
+            }
+        }
+
+        return max;
+    }
 
     /**
      *
@@ -87,19 +191,33 @@ public class ShortestPath
      */
     public int[] bellmanford(int source)
     {
-        int[] distance = new int[graph.vertices];
+        int[] distance = new int[graph.vertices()];
 
         Arrays.fill(distance, Integer.MAX_VALUE);
         distance[source] = 0;
 
-        for (int i = 0;i < graph.vertices-1;i++)
+        return bellmanford(distance);
+    }
+
+    /**
+     *
+     * @param distance initial distance of each vertex, Integer.MAX_VALUE for the vertices not yet reached
+     * @return null if negative cycle is found else 1D distance array
+     */
+    private int[] bellmanford(int[] distance)
+    {
+        for (int i = 0;i < graph.vertices()-1;i++)
         {
-            for (int currentVertex = 0; currentVertex < graph.vertices; currentVertex++)
+            for (int currentVertex = 0; currentVertex < graph.vertices(); currentVertex++)
             {
-                for (Graph.Vertex v : graph.adjacencyList.get(currentVertex))
+                if (distance[currentVertex] == Integer.MAX_VALUE) continue;
+
+                for (int j = 0;j < graph.degree(currentVertex);j++)
                 {
-                    if (distance[currentVertex] != Integer.MAX_VALUE && distance[currentVertex]+ v.w < distance[v.i])
-                        distance[v.i] = distance[currentVertex]+ v.w;
+                    int v = graph.target(currentVertex, j);
+
+                    if (distance[currentVertex]+graph.weight(currentVertex, j) < distance[v])
+                        distance[v] = distance[currentVertex]+graph.weight(currentVertex, j);
                 }
             }
         }
@@ -111,11 +229,13 @@ public class ShortestPath
            possible which can be true only if there is a negative cycle.
         */
 
-        for (int currentVertex = 0; currentVertex < graph.vertices; currentVertex++)
+        for (int currentVertex = 0; currentVertex < graph.vertices(); currentVertex++)
         {
-            for (Graph.Vertex v : graph.adjacencyList.get(currentVertex))
+            if (distance[currentVertex] == Integer.MAX_VALUE) continue;
+
+            for (int i = 0;i < graph.degree(currentVertex);i++)
             {
-                if (distance[currentVertex] != Integer.MAX_VALUE && distance[currentVertex]+ v.w < distance[v.i])
+                if (distance[currentVertex]+graph.weight(currentVertex, i) < distance[graph.target(currentVertex, i)])
                     return null;
             }
         }
@@ -129,24 +249,23 @@ public class ShortestPath
      */
     public int[][] floydWarshall()
     {
-        int[][] distances = new int[graph.vertices][graph.vertices];
+        int[][] distances = new int[graph.vertices()][graph.vertices()];
         for (int[] eachDistance: distances) Arrays.fill(eachDistance, Integer.MAX_VALUE);
 
         // Fill all diagonal elements with 0
-        for (int i = 0;i < graph.vertices;i++) distances[i][i] = 0;
+        for (int i = 0;i < graph.vertices();i++) distances[i][i] = 0;
 
-        for (int source = 0; source < graph.adjacencyList.size(); source++)
+        for (int source = 0; source < graph.vertices(); source++)
         {
-            ArrayList<Graph.Vertex> vertices = graph.adjacencyList.get(source);
-
-            for (Graph.Vertex v: vertices) distances[source][v.i] = v.w;
+            for (int i = 0;i < graph.degree(source);i++)
+                distances[source][graph.target(source, i)] = graph.weight(source, i);
         }
 
-        for (int k = 0;k < graph.vertices;k++)
+        for (int k = 0;k < graph.vertices();k++)
         {
-            for (int i = 0;i < graph.vertices;i++)
+            for (int i = 0;i < graph.vertices();i++)
             {
-                for (int j = 0;j < graph.vertices;j++)
+                for (int j = 0;j < graph.vertices();j++)
                 {
                     if (distances[i][k] != Integer.MAX_VALUE && distances[k][j] != Integer.MAX_VALUE)
                         distances[i][j] = Math.min(distances[i][k]+distances[k][j], distances[i][j]);
@@ -164,47 +283,48 @@ public class ShortestPath
     public int[][] johnsons()
     {
         /* Step 1: Add a new vertex q to the original graph, connected by zero-weight edges to all the other vertices
-           of the graph */
+           of the graph.
 
-        graph.vertices++;
-        graph.adjacencyList.add(new ArrayList<>());
-        for (int i = 0;i < graph.vertices-1;i++) graph.adjacencyList.get(graph.vertices-1).add(new Graph.Vertex(i, 0));
+           Step 2: Use bellmanford with the new vertex q as source, to find for each vertex v the minimum weight h(v) of
+           a path from q to v. If this step detects a negative cycle, the algorithm is terminated.
 
-        /* Step 2: Use bellmanford with the new vertex q as source, to find for each vertex v the minimum weight h(v) of
-           a path from q to v. If this step detects a negative cycle, the algorithm is terminated. */
+           Instead of adding q to the graph, its zero-weight edges are relaxed up front, ie, bellmanford starts with a
+           distance of 0 for every vertex. */
 
-        int[] h = bellmanford(graph.vertices-1);
+        int[] h = bellmanford(new int[graph.vertices()]);
         if (h == null) return null;
 
         /* Step 3: Re-weight the edges of the original graph using the values computed by the Bellman–Ford algorithm.
-           w'(u, v) = w(u,v) + h(u) − h(v). */
+           w'(u, v) = w(u,v) + h(u) − h(v).
 
-        for (int u = 0;u < graph.vertices;u++)
-        {
-            ArrayList<Graph.Vertex> vertices = graph.adjacencyList.get(u);
+           The new weights are written to a separate array so that the graph itself is left untouched. */
 
-            for (Graph.Vertex v: vertices)
+        CsrGraph csr = CsrGraph.of(graph);
+        int[] weights = new int[csr.edges()];
+
+        for (int u = 0;u < csr.vertices;u++)
+        {
+            for (int e = csr.offsets[u];e < csr.offsets[u+1];e++)
             {
                 // new weight
-                v.w = v.w + h[u] - h[v.i];
+                weights[e] = csr.weights[e] + h[u] - h[csr.targets[e]];
             }
         }
 
-        /* Step 4: Remove edge q and apply dijkstra from each node s to every other vertex in the re-weighted graph */
+        /* Step 4: Apply dijkstra from each node s to every other vertex in the re-weighted graph */
 
-        graph.adjacencyList.remove(graph.vertices-1);
-        graph.vertices--;
+        ShortestPath reweighted = new ShortestPath(new CsrGraph(csr.vertices, csr.offsets, csr.targets, weights));
 
-        int[][] distances = new int[graph.vertices][];
+        int[][] distances = new int[graph.vertices()][];
 
-        for (int s = 0;s < graph.vertices;s++) distances[s] = dijkstra(s);
+        for (int s = 0;s < graph.vertices();s++) distances[s] = reweighted.dijkstra(s);
 
         /* Step 5: Compute the distance in the original graph by adding h[v] - h[u]  to the distance returned by
            dijkstra */
 
-        for (int u = 0;u < graph.vertices;u++)
+        for (int u = 0;u < graph.vertices();u++)
         {
-            for (int v = 0;v < graph.vertices;v++)
+            for (int v = 0;v < graph.vertices();v++)
             {
                 // If no edge exist, continue
                 if (distances[u][v] == Integer.MAX_VALUE) continue;
@@ -0,0 +1,278 @@
+package Graph;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ *
+ * Maps string IDs, eg, names or URLs, to the dense vertices 0, 1, 2, ... used by Graph and back. The first encoded ID
+ * becomes vertex 0, the next new ID becomes vertex 1 and so on, hence after encoding all the IDs, a graph of
+ * dictionary.size() vertices can hold all of them.
+ *
+ * The IDs are not kept as String objects. Their UTF-8 bytes are appended to an arena of direct (off-heap) buffers and
+ * every vertex only stores the location, length and hash of its bytes in int arrays. The vertices are indexed by an
+ * open addressing hash table resolving collisions using linear probing, which is doubled whenever it becomes half full.
+ * Hence, the heap holds 24 to 48 bytes per ID, independent of the length of the ID, instead of the String, Integer and
+ * HashMap entry objects taken by a HashMap<String, Integer>.
+ *
+ * Example:
+ *
+ *     StringVertexDictionary dictionary = new StringVertexDictionary();
+ *
+ *     int[] src = dictionary.encode(sourceNames);
+ *     int[] dst = dictionary.encode(destinationNames);
+ *
+ *     UndirectedGraph ug = new UndirectedGraph(dictionary.size());
+ *     ug.addEdges(src, dst, null);
+ *
+ *     ArrayList<String[]> components = dictionary.decodeAll(new ConnectedComponents.UG(ug).connectedComponents());
+ *
+ * NOTE: The dictionary is not thread-safe.
+ */
+public final class StringVertexDictionary
+{
+    // Size of a buffer of the arena. An ID longer than this is stored in a buffer of its own
+    private static final int CHUNK_BYTES = 1 << 22;
+
+    private static final int FREE = -1;
+
+    // Vertices, or FREE
+    private int[] table;
+
+    private final ArrayList<ByteBuffer> chunks = new ArrayList<>();
+
+    // Bytes of u are bytes [offset[u], offset[u]+length[u]) of chunks.get(chunk[u])
+    private int[] chunk;
+    private int[] offset;
+    private int[] length;
+    private int[] hash;
+    private int size;
+
+    // Used to compare the stored bytes with the bytes of an ID being searched
+    private byte[] scratch = new byte[64];
+
+    public StringVertexDictionary()
+    {
+        this(16);
+    }
+
+    /**
+     *
+     * @param expectedSize number of IDs which can be encoded without resizing the dictionary
+     */
+    public StringVertexDictionary(int expectedSize)
+    {
+        if (expectedSize < 0) throw new IllegalArgumentException("Expected size should not be negative");
+
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSize) * 2 - 1) << 1;
+
+        table = new int[capacity];
+        Arrays.fill(table, FREE);
+
+        int vertices = Math.max(4, expectedSize);
+        chunk = new int[vertices];
+        offset = new int[vertices];
+        length = new int[vertices];
+        hash = new int[vertices];
+    }
+
+    /**
+     *
+     * @return number of encoded IDs, which is also the number of vertices
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     *
+     * @param id ID to be encoded
+     * @return vertex of id. If id has not been encoded before, it becomes the vertex size()
+     */
+    public int encode(String id)
+    {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int h = hash(bytes);
+        int mask = table.length-1;
+        int i = h & mask;
+
+        while (table[i] != FREE)
+        {
+            if (matches(table[i], bytes, h)) return table[i];
+            i = (i+1) & mask;
+        }
+
+        if (size == chunk.length) grow();
+
+        store(size, bytes);
+        hash[size] = h;
+        table[i] = size;
+
+        if (2*++size > table.length) resize();
+
+        return size-1;
+    }
+
+    /**
+     *
+     * @param ids IDs to be encoded
+     * @return vertices[i] is the vertex of ids[i]
+     */
+    public int[] encode(String[] ids)
+    {
+        int[] vertices = new int[ids.length];
+        for (int i = 0;i < ids.length;i++) vertices[i] = encode(ids[i]);
+
+        return vertices;
+    }
+
+    /**
+     *
+     * @param id ID to be searched
+     * @return vertex of id or -1 if id has not been encoded
+     */
+    public int get(String id)
+    {
+        byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+        int h = hash(bytes);
+        int mask = table.length-1;
+
+        for (int i = h & mask;table[i] != FREE;i = (i+1) & mask)
+        {
+            if (matches(table[i], bytes, h)) return table[i];
+        }
+
+        return -1;
+    }
+
+    /**
+     *
+     * @param u vertex
+     * @return ID of u
+     * @throws IndexOutOfBoundsException if u is not a vertex of the dictionary
+     */
+    public String decode(int u)
+    {
+        if (u < 0 || u >= size) throw new IndexOutOfBoundsException("Vertex " + u + " out of bounds");
+
+        byte[] bytes = new byte[length[u]];
+        chunks.get(chunk[u]).get(offset[u], bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     *
+     * @param vertices vertices, eg, a path
+     * @return ids[i] is the ID of vertices[i]
+     */
+    public String[] decode(int[] vertices)
+    {
+        String[] ids = new String[vertices.length];
+        for (int i = 0;i < vertices.length;i++) ids[i] = decode(vertices[i]);
+
+        return ids;
+    }
+
+    /**
+     *
+     * @param vertices vertices in their iteration order, eg, a path or an ordering returned by an algorithm
+     * @return IDs of the vertices in the same order
+     */
+    public String[] decode(Collection<Integer> vertices)
+    {
+        String[] ids = new String[vertices.size()];
+        int i = 0;
+
+        for (int u : vertices) ids[i++] = decode(u);
+
+        return ids;
+    }
+
+    /**
+     *
+     * @param components list of vertex lists, eg, connected components
+     * @return IDs of the vertices of every list, in the same order
+     */
+    public ArrayList<String[]> decodeAll(List<? extends Collection<Integer>> components)
+    {
+        ArrayList<String[]> ids = new ArrayList<>(components.size());
+        for (Collection<Integer> component : components) ids.add(decode(component));
+
+        return ids;
+    }
+
+    private static int hash(byte[] bytes)
+    {
+        int h = 1;
+        for (byte b : bytes) h = 31*h + b;
+
+        // Mix the bits, since only the lower bits of the hash select the slot
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+
+        return h;
+    }
+
+    private boolean matches(int u, byte[] bytes, int h)
+    {
+        if (hash[u] != h || length[u] != bytes.length) return false;
+
+        if (scratch.length < bytes.length) scratch = new byte[Math.max(bytes.length, 2*scratch.length)];
+        chunks.get(chunk[u]).get(offset[u], scratch, 0, bytes.length);
+
+        return Arrays.equals(scratch, 0, bytes.length, bytes, 0, bytes.length);
+    }
+
+    private void store(int u, byte[] bytes)
+    {
+        ByteBuffer current = chunks.isEmpty() ? null : chunks.get(chunks.size()-1);
+
+        if (current == null || current.capacity() - current.position() < bytes.length)
+        {
+            current = ByteBuffer.allocateDirect(Math.max(CHUNK_BYTES, bytes.length));
+            chunks.add(current);
+        }
+
+        chunk[u] = chunks.size()-1;
+        offset[u] = current.position();
+        length[u] = bytes.length;
+
+        current.put(bytes);
+    }
+
+    private void grow()
+    {
+        int capacity = chunk.length + (chunk.length >> 1);
+
+        chunk = Arrays.copyOf(chunk, capacity);
+        offset = Arrays.copyOf(offset, capacity);
+        length = Arrays.copyOf(length, capacity);
+        hash = Arrays.copyOf(hash, capacity);
+    }
+
+    private void resize()
+    {
+        table = new int[2*table.length];
+        Arrays.fill(table, FREE);
+
+        int mask = table.length-1;
+
+        // Every ID is distinct, hence it is placed in the first free slot without comparing its bytes
+        for (int u = 0;u < size;u++)
+        {
+            int i = hash[u] & mask;
+            while (table[i] != FREE) i = (i+1) & mask;
+
+            table[i] = u;
+        }
+    }
+}
@@ -6,9 +6,14 @@ import java.util.Stack;
 
 public class TopologicalSort
 {
-    private final DirectedGraph dg;
+    private final GraphView dg;
 
     public TopologicalSort(DirectedGraph dg)
+    {
+        this((GraphView) dg);
+    }
+
+    public TopologicalSort(GraphView dg)
     {
         this.dg = dg;
     }
@@ -18,46 +23,64 @@ public class TopologicalSort
      * Finds a valid topological ordering using DFS
      *
      * @return Stack<Integer> which stores a valid topological ordering which can be obtained by popping the elements
+     * @see TopologicalSort#topologicalOrder() which returns the same ordering without boxing the vertices
      */
     public Stack<Integer> topologicalOrdering()
     {
-        int[] parent = new int[dg.vertices];
-        Arrays.fill(parent, -1);
+        int[] order = topologicalOrder();
 
         Stack<Integer> ordering = new Stack<>();
-
-        for (int i = 0; i < dg.vertices; i++)
-        {
-            if (parent[i] == -1)
-            {
-                parent[i] = -2;
-                DFS(i, parent, ordering);
-            }
-        }
+        for (int i = order.length-1;i >= 0;i--) ordering.add(order[i]);
 
         return ordering;
     }
 
     /**
      *
-     * @param u parent vertex
-     * @param parent parent array
-     * @param ordering stack to store vertices according to their finishing time. vertex with the largest
-     *                 finishing time will be at the top upon completion
+     * Finds a valid topological ordering using DFS
+     *
+     * @return order[] where every edge u -> v has u before v, the same ordering as topologicalOrdering() pops
      */
-    private void DFS(int u, int[] parent, Stack<Integer> ordering)
+    public int[] topologicalOrder()
     {
-        for (Graph.Vertex v : dg.adjacencyList.get(u))
+        int[] parent = new int[dg.vertices()];
+        Arrays.fill(parent, -1);
+
+        // Every vertex is finished once and placed before the vertices finished earlier, ie, filled from the end
+        int[] order = new int[dg.vertices()];
+
+        DepthFirstSearch search = new DepthFirstSearch(dg);
+        DepthFirstSearch.Visitor visitor = new DepthFirstSearch.Visitor()
+        {
+            private int first = order.length;
+
+            @Override
+            public int edge(int u, int i, int v)
+            {
+                if (parent[v] != -1) return DepthFirstSearch.SKIP;
+
+                parent[v] = u;
+                return DepthFirstSearch.DESCEND;
+            }
+
+            // On finishing the exploration of the vertex source, add it before the vertices finished so far
+            @Override
+            public void postVisit(int u)
+            {
+                order[--first] = u;
+            }
+        };
+
+        for (int i = 0; i < dg.vertices(); i++)
         {
-            if (parent[v.i] == -1)
+            if (parent[i] == -1)
             {
-                parent[v.i] = u;
-                DFS(v.i, parent, ordering);
+                parent[i] = -2;
+                search.run(i, visitor);
             }
         }
 
-        // On finishing the exploration of the vertex source, add it the stack
-        ordering.add(u);
+        return order;
     }
 
     /**
@@ -67,16 +90,11 @@ public class TopologicalSort
      */
     public LinkedList<Integer> kahns()
     {
-        int[] inDegree = new int[dg.vertices];
+        // The in-degrees maintained by a directed graph are copied, since they are decreased below
+        int[] inDegree = dg instanceof DirectedGraph ? ((DirectedGraph) dg).inDegree.clone() : findInDegree();
         LinkedList<Integer> queue = new LinkedList<>();
         LinkedList<Integer> ordering = new LinkedList<>();
 
-        // Find in-degree of all the vertices
-        for (int source = 0; source < dg.vertices; source++)
-        {
-            for (Graph.Vertex v : dg.adjacencyList.get(source)) inDegree[v.i]++;
-        }
-
         for (int i = 0; i < inDegree.length; i++)
         {
             if (inDegree[i] == 0)
@@ -90,21 +108,36 @@ public class TopologicalSort
         {
             int u = queue.removeFirst();
 
-            for (Graph.Vertex v : dg.adjacencyList.get(u))
+            for (int i = 0;i < dg.degree(u);i++)
             {
+                int v = dg.target(u, i);
+
                 /*
                 Decrease the in-degree of neighbouring vertex by 1. If in-degree now becomes 0, add it to the queue
                  */
-                inDegree[v.i]--;
+                inDegree[v]--;
 
-                if (inDegree[v.i] == 0)
+                if (inDegree[v] == 0)
                 {
-                    queue.add(v.i);
-                    ordering.add(v.i);
+                    queue.add(v);
+                    ordering.add(v);
                 }
             }
         }
 
         return ordering;
     }
+
+    // Finds in-degree of all the vertices
+    private int[] findInDegree()
+    {
+        int[] inDegree = new int[dg.vertices()];
+
+        for (int source = 0; source < dg.vertices(); source++)
+        {
+            for (int i = 0; i < dg.degree(source); i++) inDegree[dg.target(source, i)]++;
+        }
+
+        return inDegree;
+    }
 }
@@ -13,9 +13,16 @@ public class UndirectedGraph extends Graph
     }
 
     @Override
-    public void addEdge(Integer u, Integer v, Integer weight)
+    public void addEdge(int u, int v, int weight)
     {
-        adjacencyList.get(u).add(new Graph.Vertex(v, weight));
-        adjacencyList.get(v).add(new Graph.Vertex(u, weight));
+        append(u, v, weight);
+        append(v, u, weight);
+        version++;
+    }
+
+    @Override
+    boolean mirrored()
+    {
+        return true;
     }
 }
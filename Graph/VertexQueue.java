@@ -0,0 +1,32 @@
+package Graph;
+
+/**
+ *
+ * Priority queue of the vertices 0 to capacity-1 used by dijkstra, in which every vertex is at most once and the
+ * priority of a vertex in the queue can be lowered.
+ *
+ * @see IndexedHeap
+ * @see MonotoneQueue
+ */
+interface VertexQueue
+{
+    boolean isEmpty();
+
+    /**
+     * Inserts the key if it is not in the queue, else lowers its priority if the new priority is lower.
+     *
+     * @param key key
+     * @param p priority
+     * @return true if the key was inserted or its priority was lowered
+     */
+    boolean offer(int key, long p);
+
+    /**
+     *
+     * @return key having the lowest priority, which is removed from the queue
+     */
+    int pop();
+
+    // Removes every key
+    void clear();
+}
@@ -0,0 +1,77 @@
+package Graph;
+
+/**
+ *
+ * Set of the vertices 0 to vertices-1 whose memory grows with the part of the graph added to it, instead of the number
+ * of vertices of the graph. The set is a bitset split into pages of PAGE vertices, a page being allocated once one of
+ * its vertices is added, hence an empty set only takes one reference per PAGE vertices.
+ *
+ * Reading a bit through its page costs one more memory access than reading it from a single bitset, hence once one in
+ * FLATTEN_AT pages has been allocated, eg, by a traversal which reaches most of the graph, flattenIfDense() copies the
+ * pages into a single bitset of all the vertices. It is left to the caller to call it outside of its loop over the
+ * edges, which the JIT compiles better without the call.
+ *
+ * It is used by the lazy traversals of GraphTraversal, which should only touch the part of the graph they return.
+ */
+final class VertexSet
+{
+    // Number of vertices of a page, 512 bytes of bits
+    private static final int SHIFT = 12;
+    private static final int PAGE = 1 << SHIFT;
+
+    private static final int FLATTEN_AT = 16;
+
+    // pages[p] holds the bits of the vertices p*PAGE to (p+1)*PAGE-1 or null if none of them has been added. null once
+    // the pages have been copied into bits.
+    private long[][] pages;
+    private int allocated;
+
+    // Bit v is set if v is in the set, null until the pages are copied into it
+    private long[] bits;
+
+    VertexSet(int vertices)
+    {
+        pages = new long[(vertices + PAGE-1) >>> SHIFT][];
+    }
+
+    boolean contains(int v)
+    {
+        if (bits != null) return (bits[v >>> 6] & 1L << v) != 0;
+
+        long[] page = pages[v >>> SHIFT];
+
+        return page != null && (page[(v >>> 6) & (PAGE/64 - 1)] & 1L << v) != 0;
+    }
+
+    void add(int v)
+    {
+        if (bits != null)
+        {
+            bits[v >>> 6] |= 1L << v;
+            return;
+        }
+
+        if (pages[v >>> SHIFT] == null)
+        {
+            pages[v >>> SHIFT] = new long[PAGE/64];
+            allocated++;
+        }
+
+        pages[v >>> SHIFT][(v >>> 6) & (PAGE/64 - 1)] |= 1L << v;
+    }
+
+    // Copies the pages into bits once one in FLATTEN_AT pages has been allocated
+    void flattenIfDense()
+    {
+        if (bits != null || FLATTEN_AT * allocated <= pages.length) return;
+
+        bits = new long[pages.length * (PAGE/64)];
+
+        for (int p = 0;p < pages.length;p++)
+        {
+            if (pages[p] != null) System.arraycopy(pages[p], 0, bits, p * (PAGE/64), PAGE/64);
+        }
+
+        pages = null;
+    }
+}
@@ -0,0 +1,171 @@
+package Graph;
+
+import java.util.Arrays;
+
+/**
+ *
+ * Per-thread scratch arrays reused by the queries of the algorithms, so that the search of a query which only touches
+ * a small part of a big graph neither allocates nor clears arrays of V elements.
+ *
+ * The per-vertex values, eg, parents, levels or visited marks, are kept in Marks. Every value is stamped with the epoch
+ * in which it was set and a value whose stamp is not the current epoch is treated as absent, hence all the values are
+ * cleared in O(1) time by starting a new epoch. Only once every 2^31 epochs are the stamps actually cleared.
+ *
+ * Usage:
+ *
+ *     Workspace workspace = Workspace.acquire(graph.vertices());
+ *     try
+ *     {
+ *         // workspace.first, workspace.second, workspace.queue() and workspace.heap() are cleared and hold V vertices
+ *     }
+ *     finally
+ *     {
+ *         workspace.release();
+ *     }
+ *
+ * The workspace only replaces the scratch arrays of a query, not its result. A query returning an array of V elements,
+ * eg, GraphTraversal#BFS(int), GraphTraversal#BFS(int, int) or ShortestPath#dijkstra(int), still allocates the array
+ * it returns. Once the workspace has grown, ShortestPath#dijkstra(int, int) allocates nothing and
+ * GraphTraversal#bidirectionalBFS(int, int) only the path it returns.
+ *
+ * Every thread has one workspace, which is grown to the largest graph it has been used for and kept for later queries.
+ * A query running while the workspace of its thread is in use, eg, a query made by a visitor of another query, gets a
+ * new workspace instead, which is dropped once released.
+ */
+final class Workspace
+{
+    private static final ThreadLocal<Workspace> CURRENT = ThreadLocal.withInitial(Workspace::new);
+
+    static final class Marks
+    {
+        private int[] stamp = new int[0];
+        private int[] value = new int[0];
+        private int epoch;
+
+        // Removes every value and makes room for the vertices 0 to vertices-1
+        void clear(int vertices)
+        {
+            if (stamp.length < vertices)
+            {
+                stamp = new int[vertices];
+                value = new int[vertices];
+            }
+
+            if (++epoch == Integer.MAX_VALUE)
+            {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean has(int v)
+        {
+            return stamp[v] == epoch;
+        }
+
+        // Value of v, which is only valid if has(v)
+        int get(int v)
+        {
+            return value[v];
+        }
+
+        // Value of v if it has one, else absent
+        int get(int v, int absent)
+        {
+            return stamp[v] == epoch ? value[v] : absent;
+        }
+
+        void set(int v, int x)
+        {
+            stamp[v] = epoch;
+            value[v] = x;
+        }
+    }
+
+    final Marks first = new Marks();
+    final Marks second = new Marks();
+
+    private int[] queue = new int[0];
+    private int[] secondQueue = new int[0];
+
+    // Created by the first query using each of them
+    private IndexedHeap heap;
+    private MonotoneQueue.Buckets buckets;
+    private MonotoneQueue.Radix radix;
+    private int vertices;
+
+    private boolean inUse;
+
+    private Workspace() {}
+
+    /**
+     *
+     * @param vertices number of vertices of the graph
+     * @return workspace of the current thread, or a new one if it is in use, with both the marks cleared
+     */
+    static Workspace acquire(int vertices)
+    {
+        Workspace workspace = CURRENT.get();
+        if (workspace.inUse) workspace = new Workspace();
+
+        workspace.inUse = true;
+        workspace.vertices = vertices;
+        workspace.first.clear(vertices);
+        workspace.second.clear(vertices);
+
+        if (workspace.queue.length < vertices)
+        {
+            workspace.queue = new int[vertices];
+            workspace.secondQueue = new int[vertices];
+        }
+
+        // A query which ended by an exception may have left keys in the queues
+        if (workspace.heap != null) workspace.heap.clear();
+        if (workspace.buckets != null) workspace.buckets.clear();
+        if (workspace.radix != null) workspace.radix.clear();
+
+        return workspace;
+    }
+
+    void release()
+    {
+        inUse = false;
+    }
+
+    // Array of at least V ints, whose contents are left over from the previous query
+    int[] queue()
+    {
+        return queue;
+    }
+
+    // Another array of at least V ints, eg, for the second side of a bidirectional search
+    int[] secondQueue()
+    {
+        return secondQueue;
+    }
+
+    // Empty heap of the keys 0 to V-1
+    IndexedHeap heap()
+    {
+        if (heap == null || heap.capacity() < vertices) heap = new IndexedHeap(vertices);
+
+        return heap;
+    }
+
+    // Empty bucket queue of the keys 0 to V-1 for weights up to maxWeight
+    MonotoneQueue.Buckets buckets(int maxWeight)
+    {
+        if (buckets == null || buckets.capacity() < vertices || buckets.maxWeight() != maxWeight)
+            buckets = new MonotoneQueue.Buckets(vertices, maxWeight);
+
+        return buckets;
+    }
+
+    // Empty radix heap of the keys 0 to V-1
+    MonotoneQueue.Radix radixHeap()
+    {
+        if (radix == null || radix.capacity() < vertices) radix = new MonotoneQueue.Radix(vertices);
+
+        return radix;
+    }
+}